@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store;
+
+import java.util.Objects;
+
+/**
+ * A single service alert as stored in the {@link AlertTable}. Timestamps are Unix epoch seconds,
+ * matching the table's numeric {@code Created} sort key and {@code Expires} TTL attribute.
+ *
+ * @author Andrew Feury
+ */
+public final class AlertRecord {
+
+    private final String route;
+    private final long created;
+    private final String text;
+    private final long expires;
+
+    public AlertRecord(String route, long created, String text, long expires) {
+        this.route = route;
+        this.created = created;
+        this.text = text;
+        this.expires = expires;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public long getExpires() {
+        return expires;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof AlertRecord)) return false;
+        AlertRecord other = (AlertRecord) obj;
+        return created == other.created
+                && expires == other.expires
+                && Objects.equals(route, other.route)
+                && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(route, created, text, expires);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AlertRecord [route=%s, created=%s, text=%s, expires=%s]", route, created, text, expires);
+    }
+
+    /** Mutable builder, also used by the enhanced client's immutable table schema */
+    public static final class Builder {
+        private String route;
+        private long created;
+        private String text;
+        private long expires;
+
+        private Builder() {
+        }
+
+        public Builder route(String route) {
+            this.route = route;
+            return this;
+        }
+
+        public Builder created(long created) {
+            this.created = created;
+            return this;
+        }
+
+        public Builder text(String text) {
+            this.text = text;
+            return this;
+        }
+
+        public Builder expires(long expires) {
+            this.expires = expires;
+            return this;
+        }
+
+        public AlertRecord build() {
+            return new AlertRecord(route, created, text, expires);
+        }
+    }
+}
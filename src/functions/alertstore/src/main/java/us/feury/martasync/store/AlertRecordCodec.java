@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store;
+
+import static us.feury.martasync.store.AlertTable.ATTR_CREATED;
+import static us.feury.martasync.store.AlertTable.ATTR_EXPIRES;
+import static us.feury.martasync.store.AlertTable.ATTR_ROUTE;
+import static us.feury.martasync.store.AlertTable.ATTR_TEXT;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Converts between {@link AlertRecord} and low-level DynamoDB items. Equivalent to
+ * {@link AlertTable#SCHEMA} but written out by hand: one presized map per item, no builders,
+ * no {@code Optional} wrapping and no boxing of the numeric attributes.
+ *
+ * @author Andrew Feury
+ */
+public final class AlertRecordCodec {
+
+    // Defaults for attributes missing from an item
+    public static final String UNKNOWN_ROUTE = "Unknown";
+    private static final String EMPTY_TEXT = "";
+
+    // Four attributes fit without a resize at the default load factor
+    private static final int ITEM_CAPACITY = 8;
+
+    private AlertRecordCodec() {
+    }
+
+    public static Map<String, AttributeValue> toItem(AlertRecord record) {
+        Map<String, AttributeValue> item = new HashMap<>(ITEM_CAPACITY);
+        item.put(ATTR_ROUTE, AttributeValue.fromS(record.getRoute()));
+        item.put(ATTR_CREATED, AttributeValue.fromN(Long.toString(record.getCreated())));
+        item.put(ATTR_TEXT, AttributeValue.fromS(record.getText()));
+        item.put(ATTR_EXPIRES, AttributeValue.fromN(Long.toString(record.getExpires())));
+        return item;
+    }
+
+    public static AlertRecord fromItem(Map<String, AttributeValue> item) {
+        AttributeValue route = item.get(ATTR_ROUTE);
+        AttributeValue created = item.get(ATTR_CREATED);
+        AttributeValue text = item.get(ATTR_TEXT);
+        AttributeValue expires = item.get(ATTR_EXPIRES);
+        return new AlertRecord(
+                    route == null ? UNKNOWN_ROUTE : route.s(),
+                    created == null ? 0L : Long.parseLong(created.n()),
+                    text == null ? EMPTY_TEXT : text.s(),
+                    expires == null ? 0L : Long.parseLong(expires.n())
+                );
+    }
+}
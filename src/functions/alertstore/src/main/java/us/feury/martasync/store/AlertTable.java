@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticImmutableTableSchema;
+
+/**
+ * Layout of the {@code ActiveAlerts} DynamoDB table shared by the sync & query functions.
+ * The key definition must stay in line with {@code aws_dynamodb_table.alert_db} in main.tf.
+ *
+ * @author Andrew Feury
+ */
+public final class AlertTable {
+
+    public static final String TABLE_NAME = "ActiveAlerts";
+
+    // Attributes
+    public static final String ATTR_ROUTE = "Route";
+    public static final String ATTR_CREATED = "Created";
+    public static final String ATTR_TEXT = "Text";
+    public static final String ATTR_EXPIRES = "Expires";
+
+    /** Number of seconds an alert is retained before the TTL on {@link #ATTR_EXPIRES} removes it */
+    public static final long RETENTION_SECONDS = 24 * 60 * 60;
+
+    /**
+     * Reflection-free schema for use with the DynamoDB Enhanced Client. The hot paths in the
+     * functions use {@link AlertRecordCodec} directly against the low-level client instead.
+     */
+    public static final TableSchema<AlertRecord> SCHEMA =
+            StaticImmutableTableSchema.builder(AlertRecord.class, AlertRecord.Builder.class)
+                                      .newItemBuilder(AlertRecord::builder, AlertRecord.Builder::build)
+                                      .addAttribute(String.class, a->a.name(ATTR_ROUTE)
+                                                                      .getter(AlertRecord::getRoute)
+                                                                      .setter(AlertRecord.Builder::route)
+                                                                      .tags(primaryPartitionKey()))
+                                      .addAttribute(Long.class, a->a.name(ATTR_CREATED)
+                                                                    .getter(AlertRecord::getCreated)
+                                                                    .setter(AlertRecord.Builder::created)
+                                                                    .tags(primarySortKey()))
+                                      .addAttribute(String.class, a->a.name(ATTR_TEXT)
+                                                                      .getter(AlertRecord::getText)
+                                                                      .setter(AlertRecord.Builder::text))
+                                      .addAttribute(Long.class, a->a.name(ATTR_EXPIRES)
+                                                                    .getter(AlertRecord::getExpires)
+                                                                    .setter(AlertRecord.Builder::expires))
+                                      .build();
+
+    private AlertTable() {
+    }
+}
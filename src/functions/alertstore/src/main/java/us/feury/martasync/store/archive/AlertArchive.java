@@ -0,0 +1,289 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import us.feury.martasync.store.AlertRecord;
+
+/**
+ * Long-term archive of alerts that outlives the table's TTL. Alerts are partitioned by UTC day
+ * under {@code day=YYYY-MM-DD/part-<id>.msa} keys, and within each immutable part into one
+ * contiguous run per dictionary-encoded route (see {@link ArchiveFormat}). Parts live in an
+ * {@link ArchiveStore}: an S3 bucket when deployed, or a local directory.
+ * <p>
+ * Parts are read, and replaced parts deleted, up to {@value #READ_AHEAD} at a time on the given
+ * executor, so a remote store isn't a round trip per part. An aggregate over years of data is
+ * still thousands of GETs into heap buffers, though; for that, copy the bucket to a directory
+ * and aggregate over the memory-mapped local copy.
+ * <p>
+ * A single writer is assumed. Alerts archived twice, e.g. after a retried sync, are counted once.
+ *
+ * @author Andrew Feury
+ */
+public final class AlertArchive {
+
+    // Constants
+    public static final Duration DEFAULT_DISRUPTION_GAP = Duration.ofHours(2);
+    private static final String DAY_PREFIX = "day=";
+    private static final String PART_PREFIX = "part-";
+    private static final int COMPACT_THRESHOLD = 16;
+    private static final int READ_AHEAD = 16;
+
+    private final ArchiveStore store;
+    private final Executor executor;
+
+    /**
+     * @param executor runs the store's reads & deletes, e.g. a small pool for a remote store
+     */
+    public AlertArchive(ArchiveStore store, Executor executor) {
+        this.store = store;
+        this.executor = executor;
+    }
+
+    /**
+     * An archive that reads & deletes one part at a time on the calling thread
+     */
+    public AlertArchive(ArchiveStore store) {
+        this(store, Runnable::run);
+    }
+
+    public AlertArchive(Path root) {
+        this(new LocalArchiveStore(root));
+    }
+
+    /**
+     * Writes the alerts as one new part per day they fall on, compacting a day once it has
+     * accumulated {@value #COMPACT_THRESHOLD} parts.
+     */
+    public void append(Collection<AlertRecord> alerts) throws IOException {
+        Map<LocalDate, List<AlertRecord>> byDay = new TreeMap<>();
+        for (AlertRecord alert : alerts) {
+            byDay.computeIfAbsent(dayOf(alert.getCreated()), d->new ArrayList<>()).add(alert);
+        }
+
+        for (Map.Entry<LocalDate, List<AlertRecord>> day : byDay.entrySet()) {
+            this.store.write(newPartKey(day.getKey()), ArchivePartWriter.encode(day.getKey(), day.getValue()));
+            if (parts(day.getKey()).size() >= COMPACT_THRESHOLD) {
+                compact(day.getKey());
+            }
+        }
+    }
+
+    /**
+     * Merges all parts of a day into one, dropping duplicate alerts. The merged part is stored
+     * before the old ones are deleted, so an interruption leaves duplicates rather than gaps.
+     */
+    public void compact(LocalDate day) throws IOException {
+        List<String> parts = parts(day);
+        if (parts.size() < 2) return;
+
+        Map<String, AlertRecord> merged = new LinkedHashMap<>();
+        forEachPart(parts, part->{
+            for (AlertRecord alert : part.readAll()) {
+                merged.put(alert.getRoute() + "@" + alert.getCreated(), alert);
+            }
+        });
+        this.store.write(newPartKey(day), ArchivePartWriter.encode(day, new ArrayList<>(merged.values())));
+
+        List<CompletableFuture<Void>> deletes = new ArrayList<>(parts.size());
+        for (String part : parts) {
+            deletes.add(submit(()->{
+                this.store.delete(part);
+                return null;
+            }));
+        }
+        for (CompletableFuture<Void> delete : deletes) {
+            await(delete);
+        }
+    }
+
+    public List<RouteSummary> aggregate(Instant from, Instant to) throws IOException {
+        return aggregate(from, to, Optional.empty(), DEFAULT_DISRUPTION_GAP);
+    }
+
+    /**
+     * Summarizes alerts created in {@code [from, to)}, most disrupted route first.
+     *
+     * @param route restricts the result to one route
+     * @param disruptionGap alerts on a route closer together than this belong to the same disruption
+     */
+    public List<RouteSummary> aggregate(Instant from, Instant to, Optional<String> route, Duration disruptionGap) throws IOException {
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+        if (toSecond <= fromSecond) return List.of();
+        LocalDate firstDay = dayOf(fromSecond);
+        LocalDate lastDay = dayOf(toSecond - 1);
+
+        // Collect creation times per route from the parts of every day in the window
+        Map<String, Timestamps> byRoute = new HashMap<>();
+        forEachPart(parts(firstDay, lastDay), part->{
+            if (route.isPresent()) {
+                int id = part.routeId(route.get());
+                if (id >= 0) collect(part, id, fromSecond, toSecond, byRoute);
+            } else {
+                for (int id = 0; id < part.routeCount(); id++) {
+                    collect(part, id, fromSecond, toSecond, byRoute);
+                }
+            }
+        });
+
+        long gapSeconds = disruptionGap.getSeconds();
+        List<RouteSummary> summaries = new ArrayList<>(byRoute.size());
+        for (Map.Entry<String, Timestamps> entry : byRoute.entrySet()) {
+            RouteSummary summary = entry.getValue().summarize(entry.getKey(), gapSeconds);
+            if (summary.getAlerts() > 0) summaries.add(summary);
+        }
+        summaries.sort(Comparator.comparingInt(RouteSummary::getDisruptions).reversed()
+                                 .thenComparing(Comparator.comparing(RouteSummary::getDisruptedTime).reversed())
+                                 .thenComparing(RouteSummary::getRoute));
+        return summaries;
+    }
+
+    private static void collect(ArchivePart part, int id, long fromSecond, long toSecond, Map<String, Timestamps> byRoute) throws IOException {
+        Timestamps timestamps = byRoute.computeIfAbsent(part.route(id), r->new Timestamps());
+        part.forEachCreated(id, created->{
+            if (created >= fromSecond && created < toSecond) timestamps.add(created);
+        });
+    }
+
+    /**
+     * Reads the parts with up to {@value #READ_AHEAD} in flight, passing each to the consumer in
+     * key order on the calling thread.
+     */
+    private void forEachPart(List<String> keys, PartConsumer consumer) throws IOException {
+        Deque<CompletableFuture<ArchivePart>> reads = new ArrayDeque<>(READ_AHEAD);
+        Iterator<String> unread = keys.iterator();
+        while (unread.hasNext() || !reads.isEmpty()) {
+            while (unread.hasNext() && reads.size() < READ_AHEAD) {
+                String key = unread.next();
+                reads.add(submit(()->ArchivePart.read(this.store, key)));
+            }
+            consumer.accept(await(reads.remove()));
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(StoreCall<T> call) {
+        return CompletableFuture.supplyAsync(()->{
+            try {
+                return call.call();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw e;
+        }
+    }
+
+    /** Keys of the parts of every day in {@code [firstDay, lastDay]}, in one listing */
+    private List<String> parts(LocalDate firstDay, LocalDate lastDay) throws IOException {
+        return this.store.listRange(DAY_PREFIX + firstDay, dayPrefix(lastDay.plusDays(1))).stream()
+                         .filter(k->k.endsWith(ArchiveFormat.PART_SUFFIX))
+                         .collect(Collectors.toList());
+    }
+
+    List<String> parts(LocalDate day) throws IOException {
+        return this.store.list(dayPrefix(day)).stream()
+                         .filter(k->k.endsWith(ArchiveFormat.PART_SUFFIX))
+                         .collect(Collectors.toList());
+    }
+
+    private static String dayPrefix(LocalDate day) {
+        return DAY_PREFIX + day + "/";
+    }
+
+    private static LocalDate dayOf(long epochSecond) {
+        return LocalDate.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+
+    private static String newPartKey(LocalDate day) {
+        // Time-ordered so listing a day returns parts in the order they were written
+        return String.format("%s%s%013d-%s%s", dayPrefix(day), PART_PREFIX, System.currentTimeMillis(), UUID.randomUUID(), ArchiveFormat.PART_SUFFIX);
+    }
+
+    private interface StoreCall<T> {
+        T call() throws IOException;
+    }
+
+    private interface PartConsumer {
+        void accept(ArchivePart part) throws IOException;
+    }
+
+    /** Growable list of primitive creation times for one route */
+    private static final class Timestamps {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        RouteSummary summarize(String route, long gapSeconds) {
+            Arrays.sort(values, 0, size);
+            int alerts = 0;
+            int disruptions = 0;
+            long disruptedSeconds = 0;
+            long start = 0;
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                long created = values[i];
+                if (alerts > 0 && created == previous) continue; // archived twice
+                if (alerts == 0 || created - previous >= gapSeconds) {
+                    if (alerts > 0) disruptedSeconds += previous - start;
+                    disruptions++;
+                    start = created;
+                }
+                previous = created;
+                alerts++;
+            }
+            if (alerts > 0) disruptedSeconds += previous - start;
+            return new RouteSummary(route, alerts, disruptions, Duration.ofSeconds(disruptedSeconds));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of an archive part file. All integers are big-endian.
+ * <pre>
+ * int     magic
+ * bytes   created column: per route run, varint deltas from the day start, then from the previous row
+ * bytes   text column: deflated, per row a varint length followed by UTF-8 bytes
+ * footer:
+ *   long  day start (epoch seconds)
+ *   int   row count
+ *   int   route count, then per route id:
+ *         unsigned short name length, UTF-8 name, int rows, int created offset, int created length
+ *   int   text offset, int text compressed length, int text raw length
+ * int     footer offset
+ * int     magic
+ * </pre>
+ * Rows are sorted by route then creation time, so each route id owns one contiguous run in
+ * every column and the footer doubles as the route dictionary and the per-route index.
+ *
+ * @author Andrew Feury
+ */
+final class ArchiveFormat {
+
+    static final int MAGIC = 0x4D534131; // "MSA1"
+    static final String PART_SUFFIX = ".msa";
+
+    private ArchiveFormat() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import static us.feury.martasync.store.archive.ArchiveFormat.MAGIC;
+import static us.feury.martasync.store.archive.ArchiveFormat.readVarLong;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import us.feury.martasync.store.AlertRecord;
+import us.feury.martasync.store.AlertTable;
+
+/**
+ * Read-only view of one part, over a memory mapping or the bytes of an object. Only the footer
+ * is decoded up front; the created column of a route is decoded straight from the buffer when
+ * asked for, and the text column is touched only by {@link #readAll()}.
+ *
+ * @author Andrew Feury
+ */
+final class ArchivePart {
+
+    // Constants
+    private static final int ROUTE_ENTRY_MIN_BYTES = 14; // name length, rows, created offset & length
+    private static final int MAX_DEFLATE_RATIO = 1032; // deflate shrinks data by at most this factor
+
+    private final String key;
+    private final ByteBuffer buffer;
+    private final long dayStart;
+    private final int rowCount;
+    private final String[] routes;
+    private final int[] runRows;
+    private final int[] createdOffsets;
+    private final int[] createdLengths;
+    private final int textOffset;
+    private final int textLength;
+    private final int textRawLength;
+
+    private ArchivePart(String key, ByteBuffer buffer) throws IOException {
+        this.key = key;
+        this.buffer = buffer;
+
+        int size = buffer.limit();
+        if (size < 12 || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not an alert archive part: " + key);
+        }
+
+        // Every offset is checked against the part, so a truncated or corrupt one fails here
+        int footerOffset = buffer.getInt(size - 8);
+        checkRange(footerOffset, size - 8 - footerOffset, size - 8);
+        ByteBuffer footer = buffer.duplicate().position(footerOffset).limit(size - 8);
+        try {
+            this.dayStart = footer.getLong();
+            this.rowCount = footer.getInt();
+
+            int routeCount = footer.getInt();
+            if (routeCount < 0 || routeCount > footer.remaining() / ROUTE_ENTRY_MIN_BYTES) {
+                throw new IOException("Corrupt route count in " + key);
+            }
+            this.routes = new String[routeCount];
+            this.runRows = new int[routeCount];
+            this.createdOffsets = new int[routeCount];
+            this.createdLengths = new int[routeCount];
+            for (int id = 0; id < routeCount; id++) {
+                byte[] name = new byte[Short.toUnsignedInt(footer.getShort())];
+                footer.get(name);
+                this.routes[id] = new String(name, StandardCharsets.UTF_8);
+                this.runRows[id] = footer.getInt();
+                this.createdOffsets[id] = footer.getInt();
+                this.createdLengths[id] = footer.getInt();
+                if (this.runRows[id] < 0) throw new IOException("Corrupt row count in " + key);
+                checkRange(this.createdOffsets[id], this.createdLengths[id], footerOffset);
+            }
+            this.textOffset = footer.getInt();
+            this.textLength = footer.getInt();
+            this.textRawLength = footer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated footer in " + key, e);
+        }
+        checkRange(this.textOffset, this.textLength, footerOffset);
+        if (this.rowCount < 0 || this.textRawLength < 0 || this.textRawLength > (long) this.textLength * MAX_DEFLATE_RATIO) {
+            throw new IOException("Corrupt footer in " + key);
+        }
+    }
+
+    /** Verifies that {@code [offset, offset + length)} lies between the magic and {@code end} */
+    private void checkRange(int offset, int length, int end) throws IOException {
+        if (offset < 4 || length < 0 || (long) offset + length > end) {
+            throw new IOException("Corrupt offsets in " + this.key);
+        }
+    }
+
+    static ArchivePart read(ArchiveStore store, String key) throws IOException {
+        return new ArchivePart(key, store.read(key));
+    }
+
+    int routeCount() {
+        return routes.length;
+    }
+
+    String route(int id) {
+        return routes[id];
+    }
+
+    /**
+     * @return the dictionary id of the route in this part, or -1 if it has no alerts here
+     */
+    int routeId(String route) {
+        for (int id = 0; id < routes.length; id++) {
+            if (routes[id].equals(route)) return id;
+        }
+        return -1;
+    }
+
+    /** Passes the creation time of every alert of the route, in ascending order */
+    void forEachCreated(int id, LongConsumer consumer) throws IOException {
+        ByteBuffer run = this.buffer.duplicate().position(createdOffsets[id]);
+        run.limit(createdOffsets[id] + createdLengths[id]);
+        long created = this.dayStart;
+        try {
+            for (int row = 0; row < runRows[id]; row++) {
+                created += readVarLong(run);
+                consumer.accept(created);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated column in " + this.key, e);
+        }
+    }
+
+    List<AlertRecord> readAll() throws IOException {
+        ByteBuffer text = ByteBuffer.wrap(inflateText());
+        List<AlertRecord> alerts = new ArrayList<>(Math.min(this.rowCount, text.capacity())); // a row takes a byte at least
+        for (int id = 0; id < routes.length; id++) {
+            String route = routes[id];
+            forEachCreated(id, created->{
+                long length = readVarLong(text);
+                if (length > text.remaining()) throw new BufferUnderflowException();
+                byte[] textBytes = new byte[(int) length];
+                text.get(textBytes);
+                alerts.add(new AlertRecord(route, created, new String(textBytes, StandardCharsets.UTF_8),
+                                           created + AlertTable.RETENTION_SECONDS));
+            });
+        }
+        return alerts;
+    }
+
+    private byte[] inflateText() throws IOException {
+        byte[] raw = new byte[this.textRawLength];
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer compressed = this.buffer.duplicate().position(this.textOffset);
+            compressed.limit(this.textOffset + this.textLength);
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (count == 0 && inflater.needsInput()) {
+                    throw new IOException("Truncated text column in " + this.key);
+                }
+                inflated += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt text column in " + this.key, e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import static us.feury.martasync.store.archive.ArchiveFormat.MAGIC;
+import static us.feury.martasync.store.archive.ArchiveFormat.writeVarLong;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import us.feury.martasync.store.AlertRecord;
+
+/**
+ * Encodes one immutable part in the {@link ArchiveFormat} layout, ready to hand to an
+ * {@link ArchiveStore} in one piece.
+ *
+ * @author Andrew Feury
+ */
+final class ArchivePartWriter {
+
+    private ArchivePartWriter() {
+    }
+
+    static byte[] encode(LocalDate day, List<AlertRecord> alerts) throws IOException {
+        List<AlertRecord> rows = new ArrayList<>(alerts);
+        rows.sort(Comparator.comparing(AlertRecord::getRoute).thenComparingLong(AlertRecord::getCreated));
+        long dayStart = day.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+
+        // Encode the columns, tracking one run per route
+        ByteArrayOutputStream created = new ByteArrayOutputStream(rows.size() * 3);
+        ByteArrayOutputStream text = new ByteArrayOutputStream(rows.size() * 96);
+        List<String> routes = new ArrayList<>();
+        List<int[]> runs = new ArrayList<>(); // rows, created offset, created length
+        String currentRoute = null;
+        long previous = dayStart;
+        for (AlertRecord row : rows) {
+            if (!row.getRoute().equals(currentRoute)) {
+                closeRun(runs, created);
+                currentRoute = row.getRoute();
+                routes.add(currentRoute);
+                runs.add(new int[] {0, created.size(), 0});
+                previous = dayStart;
+            }
+            writeVarLong(created, row.getCreated() - previous);
+            previous = row.getCreated();
+            runs.get(runs.size() - 1)[0]++;
+
+            byte[] textBytes = row.getText().getBytes(StandardCharsets.UTF_8);
+            writeVarLong(text, textBytes.length);
+            text.write(textBytes, 0, textBytes.length);
+        }
+        closeRun(runs, created);
+
+        // Alert text is repetitive and only read back in bulk, so it is the column worth deflating
+        ByteArrayOutputStream compressedText = new ByteArrayOutputStream(text.size() / 4 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressedText, deflater)) {
+            text.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+
+        ByteArrayOutputStream part = new ByteArrayOutputStream(4 + created.size() + compressedText.size() + 32 + routes.size() * 20);
+        try (DataOutputStream out = new DataOutputStream(part)) {
+            out.writeInt(MAGIC);
+            int createdBase = out.size();
+            created.writeTo(out);
+            int textOffset = out.size();
+            compressedText.writeTo(out);
+
+            int footerOffset = out.size();
+            out.writeLong(dayStart);
+            out.writeInt(rows.size());
+            out.writeInt(routes.size());
+            for (int id = 0; id < routes.size(); id++) {
+                byte[] name = routes.get(id).getBytes(StandardCharsets.UTF_8);
+                int[] run = runs.get(id);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(run[0]);
+                out.writeInt(createdBase + run[1]);
+                out.writeInt(run[2]);
+            }
+            out.writeInt(textOffset);
+            out.writeInt(compressedText.size());
+            out.writeInt(text.size());
+            out.writeInt(footerOffset);
+            out.writeInt(MAGIC);
+        }
+        return part.toByteArray();
+    }
+
+    private static void closeRun(List<int[]> runs, ByteArrayOutputStream created) {
+        if (!runs.isEmpty()) {
+            int[] run = runs.get(runs.size() - 1);
+            run[2] = created.size() - run[1];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Where an {@link AlertArchive} keeps its parts. Keys are "/"-separated paths such as
+ * {@code day=2023-01-05/part-<id>.msa}, so a store can be a directory tree or an S3 bucket.
+ *
+ * @author Andrew Feury
+ */
+public interface ArchiveStore {
+
+    /**
+     * @return sorted keys of the objects directly under the prefix, plus {@code <prefix><name>/}
+     * once for every deeper level, like an S3 listing with a "/" delimiter
+     */
+    List<String> list(String prefix) throws IOException;
+
+    /**
+     * @return sorted keys of the objects at any depth that sort after {@code startAfter} and
+     * before {@code end}, in one listing rather than one per level
+     */
+    List<String> listRange(String startAfter, String end) throws IOException;
+
+    ByteBuffer read(String key) throws IOException;
+
+    /** Stores a complete part; readers never see it partially written */
+    void write(String key, byte[] part) throws IOException;
+
+    void delete(String key) throws IOException;
+}
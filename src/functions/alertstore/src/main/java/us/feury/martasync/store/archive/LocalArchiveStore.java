@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps parts as files under a local directory, e.g. for tests, benchmarks and offline analysis.
+ * Parts are written under a temporary name and moved into place, and read through memory maps.
+ *
+ * @author Andrew Feury
+ */
+public final class LocalArchiveStore implements ArchiveStore {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path root;
+
+    public LocalArchiveStore(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        int slash = prefix.lastIndexOf('/') + 1;
+        String parent = prefix.substring(0, slash);
+        String namePrefix = prefix.substring(slash);
+        Path directory = this.root.resolve(parent);
+        if (!Files.isDirectory(directory)) return List.of();
+
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.filter(p->{
+                                String name = p.getFileName().toString();
+                                return name.startsWith(namePrefix) && !name.endsWith(TEMP_SUFFIX);
+                           })
+                           .map(p->parent + p.getFileName() + (Files.isDirectory(p) ? "/" : ""))
+                           .sorted()
+                           .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public List<String> listRange(String startAfter, String end) throws IOException {
+        if (!Files.isDirectory(this.root)) return List.of();
+
+        try (Stream<Path> files = Files.walk(this.root)) {
+            return files.filter(p->Files.isRegularFile(p) && !p.getFileName().toString().endsWith(TEMP_SUFFIX))
+                        .map(p->this.root.relativize(p).toString().replace(File.separatorChar, '/'))
+                        .filter(k->k.compareTo(startAfter) > 0 && k.compareTo(end) < 0)
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public ByteBuffer read(String key) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(this.root.resolve(key), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] part) throws IOException {
+        Path file = this.root.resolve(key);
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        Files.write(temp, part);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.delete(this.root.resolve(key));
+    }
+}
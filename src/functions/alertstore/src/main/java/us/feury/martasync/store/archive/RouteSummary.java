@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import java.time.Duration;
+
+/**
+ * Aggregate of one route's archived alerts over a time window.
+ *
+ * @author Andrew Feury
+ */
+public final class RouteSummary {
+
+    private final String route;
+    private final int alerts;
+    private final int disruptions;
+    private final Duration disruptedTime;
+
+    public RouteSummary(String route, int alerts, int disruptions, Duration disruptedTime) {
+        this.route = route;
+        this.alerts = alerts;
+        this.disruptions = disruptions;
+        this.disruptedTime = disruptedTime;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /** Number of distinct alerts posted for the route */
+    public int getAlerts() {
+        return alerts;
+    }
+
+    /** Number of disruptions, where alerts closer together than the disruption gap count as one */
+    public int getDisruptions() {
+        return disruptions;
+    }
+
+    /** Total time from the first to the last alert of each disruption */
+    public Duration getDisruptedTime() {
+        return disruptedTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RouteSummary [route=%s, alerts=%s, disruptions=%s, disruptedTime=%s]",
+                route, alerts, disruptions, disruptedTime);
+    }
+}
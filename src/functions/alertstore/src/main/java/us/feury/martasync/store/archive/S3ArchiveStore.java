@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.store.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Keeps parts as objects in an S3 bucket, one PutObject per part. Keys are the same as those of
+ * a {@link LocalArchiveStore}, so an archive can be copied between the two as is. SDK failures
+ * surface as {@link IOException}s like local I/O errors do.
+ *
+ * @author Andrew Feury
+ */
+public final class S3ArchiveStore implements ArchiveStore {
+
+    private static final String DELIMITER = "/";
+
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3ArchiveStore(S3Client s3Client, String bucket) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        try {
+            List<String> keys = new ArrayList<>();
+            ListObjectsV2Request request = 
+                    ListObjectsV2Request.builder()
+                                        .bucket(this.bucket)
+                                        .prefix(prefix)
+                                        .delimiter(DELIMITER)
+                                        .build();
+            for (ListObjectsV2Response page : this.s3Client.listObjectsV2Paginator(request)) {
+                page.commonPrefixes().stream().map(CommonPrefix::prefix).forEach(keys::add);
+                page.contents().stream().map(S3Object::key).forEach(keys::add);
+            }
+            Collections.sort(keys);
+            return keys;
+        } catch (SdkException e) {
+            throw new IOException("Unable to list s3://" + this.bucket + "/" + prefix, e);
+        }
+    }
+
+    @Override
+    public List<String> listRange(String startAfter, String end) throws IOException {
+        try {
+            List<String> keys = new ArrayList<>();
+            ListObjectsV2Request request = 
+                    ListObjectsV2Request.builder()
+                                        .bucket(this.bucket)
+                                        .startAfter(startAfter)
+                                        .build();
+            // Keys are listed in order and pages fetched lazily, so stop at the first key past the end
+            for (ListObjectsV2Response page : this.s3Client.listObjectsV2Paginator(request)) {
+                for (S3Object object : page.contents()) {
+                    if (object.key().compareTo(end) >= 0) return keys;
+                    keys.add(object.key());
+                }
+            }
+            return keys;
+        } catch (SdkException e) {
+            throw new IOException("Unable to list s3://" + this.bucket + "/ after " + startAfter, e);
+        }
+    }
+
+    @Override
+    public ByteBuffer read(String key) throws IOException {
+        try {
+            return this.s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                                                                  .bucket(this.bucket)
+                                                                  .key(key)
+                                                                  .build())
+                                .asByteBuffer();
+        } catch (SdkException e) {
+            throw new IOException("Unable to read s3://" + this.bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] part) throws IOException {
+        try {
+            // A PutObject is atomic, readers see the whole part or none of it
+            this.s3Client.putObject(PutObjectRequest.builder()
+                                                    .bucket(this.bucket)
+                                                    .key(key)
+                                                    .build(),
+                                    RequestBody.fromBytes(part));
+        } catch (SdkException e) {
+            throw new IOException("Unable to write s3://" + this.bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            this.s3Client.deleteObject(DeleteObjectRequest.builder()
+                                                          .bucket(this.bucket)
+                                                          .key(key)
+                                                          .build());
+        } catch (SdkException e) {
+            throw new IOException("Unable to delete s3://" + this.bucket + "/" + key, e);
+        }
+    }
+}
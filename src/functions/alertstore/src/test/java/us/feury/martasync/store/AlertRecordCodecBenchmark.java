@@ -0,0 +1,92 @@
+package us.feury.martasync.store;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Compares the previous ad-hoc marshalling in the sync & query functions against the static
+ * table schema and the hand-written codec. Run with {@code mvn test-compile exec:exec}, which
+ * enables the JMH {@code gc} profiler, so each score comes with its allocation per operation
+ * ({@code gc.alloc.rate.norm}, in B/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertRecordCodecBenchmark {
+
+    private final AlertRecord alert =
+            new AlertRecord("110", 1672531200L, "Buses are detoured due to a road closure.", 1672617600L);
+    private final Map<String, AttributeValue> item = AlertRecordCodec.toItem(alert);
+
+    @Benchmark
+    public Map<String, AttributeValue> write_adHoc() {
+        Map<String, AttributeValue> attributesMap = new HashMap<>();
+        attributesMap.put("Route", AttributeValue.builder().s(alert.getRoute()).build());
+        attributesMap.put("Text", AttributeValue.builder().s(alert.getText()).build());
+        attributesMap.put("Created", AttributeValue.builder().n(String.valueOf(alert.getCreated())).build());
+        attributesMap.put("Expires", AttributeValue.builder().n(String.valueOf(alert.getExpires())).build());
+        return attributesMap;
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> write_staticSchema() {
+        return AlertTable.SCHEMA.itemToMap(alert, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> write_codec() {
+        return AlertRecordCodec.toItem(alert);
+    }
+
+    @Benchmark
+    public String[] read_adHoc() {
+        String route =
+                Optional.ofNullable(item.get("Route"))
+                        .map(AttributeValue::s)
+                        .orElse("Unknown");
+        String created =
+                Optional.ofNullable(item.get("Created"))
+                        .map(AttributeValue::n)
+                        .map(Long::decode)
+                        .map(l->Instant.ofEpochSecond(l).toString())
+                        .orElse("");
+        String text =
+                Optional.ofNullable(item.get("Text"))
+                        .map(AttributeValue::s)
+                        .orElse("");
+        return new String[] {route, created, text};
+    }
+
+    @Benchmark
+    public String[] read_staticSchema() {
+        return toQueryFields(AlertTable.SCHEMA.mapToItem(item));
+    }
+
+    @Benchmark
+    public String[] read_codec() {
+        return toQueryFields(AlertRecordCodec.fromItem(item));
+    }
+
+    // Same output as the ad-hoc read, which formatted the timestamp for the query response
+    private static String[] toQueryFields(AlertRecord record) {
+        return new String[] {record.getRoute(), Instant.ofEpochSecond(record.getCreated()).toString(), record.getText()};
+    }
+}
@@ -0,0 +1,39 @@
+package us.feury.martasync.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+public class AlertRecordCodecTest {
+
+    private static final AlertRecord ALERT =
+            new AlertRecord("110", 1672531200L, "Buses are detoured due to a road closure.", 1672617600L);
+
+    @Test
+    public void toItem_shouldMatchStaticSchema() {
+        assertEquals(AlertTable.SCHEMA.itemToMap(ALERT, true), AlertRecordCodec.toItem(ALERT));
+    }
+
+    @Test
+    public void fromItem_shouldRoundTrip() {
+        assertEquals(ALERT, AlertRecordCodec.fromItem(AlertRecordCodec.toItem(ALERT)));
+        assertEquals(ALERT, AlertTable.SCHEMA.mapToItem(AlertRecordCodec.toItem(ALERT)));
+    }
+
+    @Test
+    public void fromItem_shouldDefaultMissingAttributes() {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(AlertTable.ATTR_CREATED, AttributeValue.fromN("1672531200"));
+
+        AlertRecord alert = AlertRecordCodec.fromItem(item);
+        assertEquals(AlertRecordCodec.UNKNOWN_ROUTE, alert.getRoute());
+        assertEquals(1672531200L, alert.getCreated());
+        assertEquals("", alert.getText());
+        assertEquals(0L, alert.getExpires());
+    }
+}
@@ -0,0 +1,100 @@
+package us.feury.martasync.store.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.feury.martasync.store.AlertRecord;
+
+/**
+ * Aggregate queries over several years of synthetic, compacted archive data in a
+ * {@link LocalArchiveStore}, i.e. over a memory-mapped local copy of the bucket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertArchiveBenchmark {
+
+    @Param({"3"})
+    public int years;
+
+    @Param({"200"})
+    public int alertsPerDay;
+
+    private Path root;
+    private AlertArchive archive;
+    private Instant from;
+    private Instant to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("alert-archive");
+        archive = new AlertArchive(root);
+        Random random = new Random(42);
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        LocalDate last = first.plusYears(years);
+        for (LocalDate day = first; day.isBefore(last); day = day.plusDays(1)) {
+            long dayStart = day.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+            List<AlertRecord> alerts = new ArrayList<>(alertsPerDay);
+            for (int i = 0; i < alertsPerDay; i++) {
+                long created = dayStart + random.nextInt(86400);
+                alerts.add(new AlertRecord(String.valueOf(1 + random.nextInt(120)), created,
+                                           "Buses are experiencing delays due to traffic.", created + 86400));
+            }
+            archive.append(alerts);
+        }
+        from = first.atStartOfDay(ZoneOffset.UTC).toInstant();
+        to = last.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<RouteSummary> allRoutes_allYears() throws IOException {
+        return archive.aggregate(from, to);
+    }
+
+    @Benchmark
+    public List<RouteSummary> oneRoute_allYears() throws IOException {
+        return archive.aggregate(from, to, Optional.of("110"), AlertArchive.DEFAULT_DISRUPTION_GAP);
+    }
+
+    @Benchmark
+    public List<RouteSummary> allRoutes_lastMonth() throws IOException {
+        return archive.aggregate(to.minusSeconds(30L * 86400), to);
+    }
+}
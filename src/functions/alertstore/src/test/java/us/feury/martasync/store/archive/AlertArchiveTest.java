@@ -0,0 +1,137 @@
+package us.feury.martasync.store.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import us.feury.martasync.store.AlertRecord;
+
+public class AlertArchiveTest {
+
+    private static final Instant DAY_1 = Instant.parse("2023-01-05T00:00:00Z");
+    private static final Instant DAY_2 = Instant.parse("2023-01-06T00:00:00Z");
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void aggregate_shouldCountAlertsAndDisruptionsPerRoute() throws IOException {
+        AlertArchive archive = new AlertArchive(root);
+        archive.append(List.of(
+                alert("110", DAY_1.plusSeconds(3600)),
+                alert("110", DAY_1.plusSeconds(3600 + 1800)),   // same disruption, 30 min later
+                alert("110", DAY_1.plusSeconds(6 * 3600)),      // new disruption
+                alert("Red Line", DAY_1.plusSeconds(7200))));
+        archive.append(List.of(
+                alert("110", DAY_2.plusSeconds(600)),
+                alert("110", DAY_1.plusSeconds(3600))));        // archived twice
+
+        List<RouteSummary> summaries = archive.aggregate(DAY_1, DAY_2.plusSeconds(86400));
+        assertEquals(2, summaries.size());
+
+        RouteSummary bus = summaries.get(0);
+        assertEquals("110", bus.getRoute());
+        assertEquals(4, bus.getAlerts());
+        assertEquals(3, bus.getDisruptions());
+        assertEquals(Duration.ofMinutes(30), bus.getDisruptedTime());
+
+        RouteSummary rail = summaries.get(1);
+        assertEquals("Red Line", rail.getRoute());
+        assertEquals(1, rail.getAlerts());
+    }
+
+    @Test
+    public void aggregate_shouldRespectWindowAndRoute() throws IOException {
+        AlertArchive archive = new AlertArchive(root);
+        archive.append(List.of(
+                alert("110", DAY_1.plusSeconds(60)),
+                alert("110", DAY_2.plusSeconds(60)),
+                alert("2", DAY_2.plusSeconds(120))));
+
+        List<RouteSummary> summaries =
+                archive.aggregate(DAY_2, DAY_2.plusSeconds(86400), Optional.of("110"), AlertArchive.DEFAULT_DISRUPTION_GAP);
+        assertEquals(1, summaries.size());
+        assertEquals(1, summaries.get(0).getAlerts());
+    }
+
+    @Test
+    public void aggregate_shouldReadAndCompactPartsConcurrently() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AlertArchive archive = new AlertArchive(new LocalArchiveStore(root), executor);
+            for (int i = 0; i < 40; i++) {
+                archive.append(List.of(alert("110", DAY_1.plusSeconds(i * 600L)), alert("2", DAY_2.plusSeconds(i * 60L))));
+            }
+
+            // Each day was compacted on the 16th & 31st append, leaving the merged part and 9 newer ones
+            assertEquals(10, archive.parts(LocalDate.of(2023, 1, 5)).size());
+
+            List<RouteSummary> summaries = archive.aggregate(DAY_1, DAY_2.plusSeconds(86400));
+            assertEquals(2, summaries.size());
+            assertEquals("110", summaries.get(0).getRoute());
+            assertEquals(40, summaries.get(0).getAlerts());
+            assertEquals(Duration.ofMinutes(390), summaries.get(0).getDisruptedTime());
+            assertEquals("2", summaries.get(1).getRoute());
+            assertEquals(40, summaries.get(1).getAlerts());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void compact_shouldKeepEveryAlertOnce() throws IOException {
+        AlertArchive archive = new AlertArchive(root);
+        List<AlertRecord> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AlertRecord alert = alert(String.valueOf(i % 2), DAY_1.plusSeconds(i * 60L));
+            expected.add(alert);
+            archive.append(List.of(alert, alert));
+        }
+        LocalDate day = LocalDate.of(2023, 1, 5);
+        archive.compact(day);
+
+        List<String> parts = archive.parts(day);
+        assertEquals(1, parts.size());
+        assertEquals(expected.size(), ArchivePart.read(new LocalArchiveStore(root), parts.get(0)).readAll().size());
+
+        List<RouteSummary> summaries = archive.aggregate(DAY_1, DAY_2);
+        assertEquals(expected.size(), summaries.stream().mapToInt(RouteSummary::getAlerts).sum());
+    }
+
+    @Test
+    public void read_shouldRejectCorruptFooterOffsets() throws IOException {
+        AlertArchive archive = new AlertArchive(root);
+        archive.append(List.of(alert("110", DAY_1.plusSeconds(60)), alert("2", DAY_1.plusSeconds(120))));
+        archive.append(List.of(alert("110", DAY_1.plusSeconds(180))));
+        Path part = root.resolve(archive.parts(LocalDate.of(2023, 1, 5)).get(0));
+        byte[] bytes = Files.readAllBytes(part);
+
+        // Footer offset past the end of the part, then at the start of the columns
+        for (int footerOffset : new int[] {bytes.length, 4}) {
+            ByteBuffer.wrap(bytes).putInt(bytes.length - 8, footerOffset);
+            Files.write(part, bytes);
+            assertThrows(IOException.class, ()->archive.aggregate(DAY_1, DAY_2));
+            assertThrows(IOException.class, ()->archive.compact(LocalDate.of(2023, 1, 5)));
+        }
+    }
+
+    private static AlertRecord alert(String route, Instant created) {
+        long epochSecond = created.getEpochSecond();
+        return new AlertRecord(route, epochSecond, "Buses are detoured due to a road closure.", epochSecond + 86400);
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.dynamodbv2.local.main.ServerRunner;
+import com.amazonaws.services.dynamodbv2.local.server.DynamoDBProxyServer;
+import com.sun.management.ThreadMXBean;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import us.feury.martasync.MartaQueryFunction;
+import us.feury.martasync.MartaQueryInput;
+import us.feury.martasync.MartaSyncFunction;
+import us.feury.martasync.QuerySettings;
+import us.feury.martasync.SyncSettings;
+import us.feury.martasync.store.AlertTable;
+
+/**
+ * Offline end-to-end load test. Starts DynamoDB Local and a {@link StubApiServer}, points both
+ * functions at them, then drives a series of sync invocations followed by concurrent queries.
+ * <p>
+ * Every knob is a system property with a default, e.g.
+ * {@code mvn exec:java -Dloadtest.tweetsPerMinute=60 -Dloadtest.queryThreads=16}.
+ *
+ * @author Andrew Feury
+ */
+public class LoadTestHarness {
+
+    // Constants
+    private static final String PARAMETER_BEARER_TOKEN = "/MartaServiceSyncer/TwitterAPI/BearerToken";
+    private static final Region REGION = Region.US_EAST_1;
+
+    // Options
+    private final int syncRounds = Integer.getInteger("loadtest.syncRounds", 20);
+    private final int pollMinutes = Integer.getInteger("loadtest.pollMinutes", 15);
+    private final int tweetsPerMinute = Integer.getInteger("loadtest.tweetsPerMinute", 2);
+    private final int routeCount = Integer.getInteger("loadtest.routes", 50);
+    private final int pageSize = Integer.getInteger("loadtest.pageSize", 10);
+    private final int queryThreads = Integer.getInteger("loadtest.queryThreads", 8);
+    private final int queriesPerThread = Integer.getInteger("loadtest.queriesPerThread", 200);
+    private final int scanPercent = Integer.getInteger("loadtest.scanPercent", 10);
+    private final long seed = Long.getLong("loadtest.seed", 42L);
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final ThreadGroup fixtureThreads = new ThreadGroup("loadtest-fixture");
+
+    // Logger
+    private static final Logger log = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestHarness().run();
+    }
+
+    private void run() throws Exception {
+        int port = freePort();
+        DynamoDBProxyServer dynamoDb = startFixture(()->{
+            DynamoDBProxyServer server = ServerRunner.createServerFromCommandLineArgs(
+                    new String[] {"-inMemory", "-port", String.valueOf(port)});
+            server.start();
+            return server;
+        });
+
+        SyntheticAlertFeed feed = new SyntheticAlertFeed(tweetsPerMinute, routeCount, seed);
+        try (StubApiServer stub = startFixture(()->new StubApiServer(feed, pageSize))) {
+            URI dynamoDbEndpoint = URI.create("http://localhost:" + port);
+            DynamoDbClient adminClient =
+                    DynamoDbClient.builder()
+                                  .credentialsProvider(StaticCredentialsProvider.create(
+                                                            AwsBasicCredentials.create("local", "local")))
+                                  .region(REGION)
+                                  .endpointOverride(dynamoDbEndpoint)
+                                  .httpClientBuilder(UrlConnectionHttpClient.builder())
+                                  .build();
+            createTable(adminClient);
+            stub.putParameter(PARAMETER_BEARER_TOKEN, "loadtest-bearer-token");
+
+            // Functions read these when constructed
+            System.setProperty("aws.accessKeyId", "local");
+            System.setProperty("aws.secretAccessKey", "local");
+            System.setProperty(SyncSettings.REGION, REGION.id());
+            System.setProperty(SyncSettings.DYNAMODB_ENDPOINT, dynamoDbEndpoint.toString());
+            System.setProperty(SyncSettings.SSM_ENDPOINT, stub.getEndpoint().toString());
+            System.setProperty(SyncSettings.TWITTER_API_URL, stub.getEndpoint().toString());
+            System.setProperty(QuerySettings.DYNAMODB_ENDPOINT, dynamoDbEndpoint.toString());
+
+            runSync(new MartaSyncFunction(), feed, adminClient);
+            runQueries(new MartaQueryFunction(), feed.routes());
+        } finally {
+            dynamoDb.stop();
+        }
+    }
+
+    private void runSync(MartaSyncFunction function, SyntheticAlertFeed feed, DynamoDbClient adminClient) {
+        long published = 0;
+        long elapsedNanos = 0;
+        long allocatedBytes = 0;
+
+        for (int round = 0; round < syncRounds; round++) {
+            published += feed.publishBurst(Duration.ofMinutes(pollMinutes));
+
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            Integer status = function.handleRequest(null, null);
+            elapsedNanos += System.nanoTime() - start;
+            allocatedBytes += allocatedBytes() - allocatedBefore;
+
+            if (status != 200) log.warn("Sync round {} returned {}", round, status);
+        }
+
+        int stored = adminClient.scan(ScanRequest.builder()
+                                                 .tableName(AlertTable.TABLE_NAME)
+                                                 .select(Select.COUNT)
+                                                 .build()).count();
+        double seconds = elapsedNanos / 1e9;
+        log.info("Sync: {} rounds, {} tweets published, {} items stored, {} s in handler",
+                syncRounds, published, stored, String.format("%.3f", seconds));
+        log.info("Sync: {} tweets/s, {} ms/invocation, {} MB/s allocated",
+                String.format("%.1f", published / seconds),
+                String.format("%.1f", elapsedNanos / 1e6 / syncRounds),
+                String.format("%.1f", allocatedBytes / 1e6 / seconds));
+    }
+
+    private void runQueries(MartaQueryFunction function, List<String> routes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(queryThreads);
+        List<Future<long[]>> workers = new ArrayList<>(queryThreads);
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int t = 0; t < queryThreads; t++) {
+            Random random = new Random(seed + t);
+            workers.add(executor.submit(()->queryWorker(function, routes, random)));
+        }
+
+        long[] latencies = new long[queryThreads * queriesPerThread];
+        for (int t = 0; t < queryThreads; t++) {
+            System.arraycopy(workers.get(t).get(), 0, latencies, t * queriesPerThread, queriesPerThread);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocatedBytes = allocatedBytes() - allocatedBefore;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        log.info("Query: {} calls on {} threads, {} calls/s",
+                latencies.length, queryThreads, String.format("%.1f", latencies.length / seconds));
+        log.info("Query: p50 {} ms, p99 {} ms, max {} ms, {} MB/s allocated",
+                String.format("%.2f", percentile(latencies, 50) / 1e6),
+                String.format("%.2f", percentile(latencies, 99) / 1e6),
+                String.format("%.2f", latencies[latencies.length - 1] / 1e6),
+                String.format("%.1f", allocatedBytes / 1e6 / seconds));
+    }
+
+    private long[] queryWorker(MartaQueryFunction function, List<String> routes, Random random) {
+        long[] result = new long[queriesPerThread];
+        for (int i = 0; i < queriesPerThread; i++) {
+            MartaQueryInput input = new MartaQueryInput();
+            if (random.nextInt(100) >= scanPercent) {
+                input.setRoute(routes.get(random.nextInt(routes.size())));
+            }
+            long start = System.nanoTime();
+            function.handleRequest(input, null);
+            result[i] = System.nanoTime() - start;
+        }
+        return result;
+    }
+
+    /**
+     * Starts a fixture from a thread in {@link #fixtureThreads}. The threads DynamoDB Local and the stub
+     * server go on to create inherit that group, which is how {@link #allocatedBytes()} tells them apart.
+     */
+    private <T> T startFixture(Callable<T> start) throws Exception {
+        FutureTask<T> task = new FutureTask<>(start);
+        Thread starter = new Thread(this.fixtureThreads, task, this.fixtureThreads.getName() + "-start");
+        starter.start();
+        return task.get();
+    }
+
+    /**
+     * Bytes allocated so far by the functions: every live thread, since they do most of their work on
+     * HttpClient & SDK worker threads, less the DynamoDB Local and stub server threads. Threads that exit
+     * between two readings are missed.
+     */
+    private long allocatedBytes() {
+        Thread[] fixture = new Thread[this.fixtureThreads.activeCount() + 16];
+        int fixtureCount = this.fixtureThreads.enumerate(fixture);
+        Set<Long> excluded = new HashSet<>();
+        for (int i = 0; i < fixtureCount; i++) {
+            excluded.add(fixture[i].getId());
+        }
+
+        long[] ids = this.threads.getAllThreadIds();
+        long[] allocated = this.threads.getThreadAllocatedBytes(ids);
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] > 0 && !excluded.contains(ids[i])) total += allocated[i];
+        }
+        return total;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static void createTable(DynamoDbClient client) {
+        client.createTable(CreateTableRequest.builder()
+                                             .tableName(AlertTable.TABLE_NAME)
+                                             .billingMode(BillingMode.PAY_PER_REQUEST)
+                                             .attributeDefinitions(
+                                                 AttributeDefinition.builder()
+                                                                    .attributeName(AlertTable.ATTR_ROUTE)
+                                                                    .attributeType(ScalarAttributeType.S)
+                                                                    .build(),
+                                                 AttributeDefinition.builder()
+                                                                    .attributeName(AlertTable.ATTR_CREATED)
+                                                                    .attributeType(ScalarAttributeType.N)
+                                                                    .build())
+                                             .keySchema(
+                                                 KeySchemaElement.builder()
+                                                                 .attributeName(AlertTable.ATTR_ROUTE)
+                                                                 .keyType(KeyType.HASH)
+                                                                 .build(),
+                                                 KeySchemaElement.builder()
+                                                                 .attributeName(AlertTable.ATTR_CREATED)
+                                                                 .keyType(KeyType.RANGE)
+                                                                 .build())
+                                             .build());
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import us.feury.martasync.loadtest.SyntheticAlertFeed.Tweet;
+
+/**
+ * Local stand-in for the two HTTP services the sync function talks to besides DynamoDB: the
+ * Twitter v2 recent search endpoint, replayed from a {@link SyntheticAlertFeed}, and the
+ * subset of the SSM Parameter Store JSON protocol used for the bearer token & cursors.
+ *
+ * @author Andrew Feury
+ */
+public class StubApiServer implements AutoCloseable {
+
+    // Constants
+    private static final String PATH_SEARCH_TWEETS = "/2/tweets/search/recent";
+    private static final String BUS_QUERY_TERM = "route";
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String CONTENT_TYPE_SSM = "application/x-amz-json-1.1";
+    private static final DateTimeFormatter FORMAT_CREATED_AT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneOffset.UTC);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SyntheticAlertFeed feed;
+    private final int pageSize;
+    private final Map<String, String> parameters = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Logger
+    private static final Logger log = LoggerFactory.getLogger(StubApiServer.class);
+
+    public StubApiServer(SyntheticAlertFeed feed, int pageSize) throws IOException {
+        this.feed = feed;
+        this.pageSize = pageSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r->new Thread(r, "stub-api-" + threadCount.incrementAndGet()));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext(PATH_SEARCH_TWEETS, this::handleSearch);
+        this.server.createContext("/", this::handleSsm);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        log.info("Stub API listening on {}", getEndpoint());
+    }
+
+    public URI getEndpoint() {
+        InetSocketAddress address = this.server.getAddress();
+        return URI.create(String.format("http://%s:%d", address.getHostString(), address.getPort()));
+    }
+
+    public void putParameter(String name, String value) {
+        this.parameters.put(name, value);
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if (auth == null || !auth.startsWith("Bearer ")) {
+            respond(exchange, 401, CONTENT_TYPE_JSON, "{\"title\":\"Unauthorized\"}");
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        long sinceId = Long.parseLong(query.getOrDefault("since_id", "0"));
+        long untilId = Long.parseLong(query.getOrDefault("next_token", String.valueOf(Long.MAX_VALUE)));
+        int maxResults = Math.min(Integer.parseInt(query.getOrDefault("max_results", String.valueOf(this.pageSize))), this.pageSize);
+
+        // The synthetic feed only models bus alerts, so other searches come back empty
+        List<Tweet> page = query.getOrDefault("query", "").contains(BUS_QUERY_TERM)
+                ? this.feed.page(sinceId, untilId, maxResults + 1)  // one extra to know whether another page exists
+                : List.of();
+        boolean hasMore = page.size() > maxResults;
+        if (hasMore) page = page.subList(0, maxResults);
+
+        ObjectNode body = this.mapper.createObjectNode();
+        ObjectNode meta = this.mapper.createObjectNode();
+        if (!page.isEmpty()) {
+            ArrayNode data = body.putArray("data");
+            for (Tweet tweet : page) {
+                data.addObject()
+                    .put("id", String.valueOf(tweet.getId()))
+                    .put("created_at", FORMAT_CREATED_AT.format(tweet.getCreatedAt()))
+                    .put("text", tweet.getText());
+            }
+            meta.put("newest_id", String.valueOf(page.get(0).getId()));
+            meta.put("oldest_id", String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        meta.put("result_count", page.size());
+        if (hasMore) meta.put("next_token", String.valueOf(page.get(page.size() - 1).getId()));
+        body.set("meta", meta);
+
+        respond(exchange, 200, CONTENT_TYPE_JSON, this.mapper.writeValueAsString(body));
+    }
+
+    private void handleSsm(HttpExchange exchange) throws IOException {
+        String target = String.valueOf(exchange.getRequestHeaders().getFirst("X-Amz-Target"));
+        JsonNode request = this.mapper.readTree(exchange.getRequestBody());
+        String name = request.path("Name").asText();
+
+        ObjectNode body = this.mapper.createObjectNode();
+        switch (target) {
+            case "AmazonSSM.GetParameter":
+                String value = this.parameters.get(name);
+                if (value == null) {
+                    body.put("__type", "ParameterNotFound");
+                    body.put("message", name);
+                    respond(exchange, 400, CONTENT_TYPE_SSM, this.mapper.writeValueAsString(body));
+                    return;
+                }
+                body.putObject("Parameter")
+                    .put("Name", name)
+                    .put("Type", "String")
+                    .put("Value", value)
+                    .put("Version", 1);
+                break;
+            case "AmazonSSM.GetParameters":
+                ArrayNode found = body.putArray("Parameters");
+                ArrayNode missing = body.putArray("InvalidParameters");
+                for (JsonNode requested : request.path("Names")) {
+                    String parameter = this.parameters.get(requested.asText());
+                    if (parameter == null) {
+                        missing.add(requested.asText());
+                    } else {
+                        found.addObject()
+                             .put("Name", requested.asText())
+                             .put("Type", "String")
+                             .put("Value", parameter)
+                             .put("Version", 1);
+                    }
+                }
+                break;
+            case "AmazonSSM.PutParameter":
+                this.parameters.put(name, request.path("Value").asText());
+                body.put("Version", 1);
+                body.put("Tier", "Standard");
+                break;
+            default:
+                body.put("__type", "InvalidAction");
+                body.put("message", target);
+                respond(exchange, 400, CONTENT_TYPE_SSM, this.mapper.writeValueAsString(body));
+                return;
+        }
+        respond(exchange, 200, CONTENT_TYPE_SSM, this.mapper.writeValueAsString(body));
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            int split = pair.indexOf('=');
+            if (split > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, split), StandardCharsets.UTF_8),
+                          URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.loadtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic @MARTAservice timeline. Each call to {@link #publishBurst(Duration)}
+ * appends the alerts that would have been posted over one polling period, spread evenly over
+ * that period and uniformly across the configured number of routes.
+ *
+ * @author Andrew Feury
+ */
+public class SyntheticAlertFeed {
+
+    private static final String[] REASONS = {
+        "Buses are experiencing delays of up to 20 minutes due to traffic.",
+        "Buses are detoured due to a road closure. Please allow extra travel time.",
+        "Service is delayed due to a disabled vehicle.",
+        "Buses are operating on a modified schedule.",
+        "Normal service has resumed."
+    };
+
+    /** A single generated tweet */
+    public static class Tweet {
+        private final long id;
+        private final Instant createdAt;
+        private final String route;
+        private final String text;
+
+        Tweet(long id, Instant createdAt, String route, String text) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.route = route;
+            this.text = text;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final int tweetsPerMinute;
+    private final int routeCount;
+    private final Random random;
+
+    // Ascending by id; ids are snowflake-sized like the real API
+    private final List<Tweet> tweets = new ArrayList<>();
+    private long nextId = 1_600_000_000_000_000_000L;
+    private Instant clock;
+
+    public SyntheticAlertFeed(int tweetsPerMinute, int routeCount, long seed) {
+        this.tweetsPerMinute = tweetsPerMinute;
+        this.routeCount = routeCount;
+        this.random = new Random(seed);
+        this.clock = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Publishes the alerts for one polling period and advances the feed clock past it.
+     *
+     * @param period length of the polling period
+     * @return number of tweets published
+     */
+    public synchronized int publishBurst(Duration period) {
+        int count = (int) (tweetsPerMinute * period.toMinutes());
+        long spacingMillis = count > 0 ? period.toMillis() / count : 0;
+        for (int i = 0; i < count; i++) {
+            String route = String.valueOf(1 + random.nextInt(routeCount));
+            String text = String.format("Route %s: %s", route, REASONS[random.nextInt(REASONS.length)]);
+            Instant createdAt = clock.plusMillis(i * spacingMillis);
+            tweets.add(new Tweet(nextId, createdAt, route, text));
+            nextId += 1 + random.nextInt(1_000_000);
+        }
+        clock = clock.plus(period);
+        return count;
+    }
+
+    /**
+     * Returns one page of tweets newer than {@code sinceId}, newest first, matching the
+     * {@code sort_order=recency} behaviour of the search API.
+     *
+     * @param sinceId exclusive lower bound, or 0 for all tweets
+     * @param untilId exclusive upper bound used for pagination, or {@link Long#MAX_VALUE}
+     * @param pageSize maximum number of tweets to return
+     * @return tweets in descending id order
+     */
+    public synchronized List<Tweet> page(long sinceId, long untilId, int pageSize) {
+        List<Tweet> page = new ArrayList<>(pageSize);
+        for (int i = tweets.size() - 1; i >= 0 && page.size() < pageSize; i--) {
+            Tweet tweet = tweets.get(i);
+            if (tweet.getId() <= sinceId) break;
+            if (tweet.getId() < untilId) page.add(tweet);
+        }
+        return page;
+    }
+
+    public synchronized int size() {
+        return tweets.size();
+    }
+
+    public List<String> routes() {
+        List<String> routes = new ArrayList<>(routeCount);
+        for (int i = 1; i <= routeCount; i++) {
+            routes.add(String.valueOf(i));
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,97 @@
+#!/bin/sh
+# Compares cold start & peak RSS of the JVM and native builds of a function, locally.
+#
+# Usage: ./measure-coldstart.sh <syncbusalerts|querybusalerts> <jvm|native> [payload]
+#        ./measure-coldstart.sh all [runs]
+#
+# The second form measures both functions in both modes, `runs` times each (default 5),
+# and prints the median of each as a Markdown table.
+#
+# Each build runs in the AWS Lambda base image of the runtime it deploys to, which bundles the
+# Runtime Interface Emulator: the shaded jar on the managed java11 runtime (public.ecr.aws/lambda/java:11)
+# and the native executable on provided.al2, both limited to the deployed 512 MB. Requires Docker and,
+# from this directory, `mvn package` followed by `mvn package -Pnative` (no clean in between, so both
+# builds are in target/). The function still needs reachable DynamoDB/SSM endpoints: export real
+# credentials, or DYNAMODB_ENDPOINT / SSM_ENDPOINT / TWITTER_API_URL pointing at local stand-ins
+# (see loadtest/README.md). The container shares the host network, so localhost endpoints work.
+set -e
+
+root="$(cd "$(dirname "$0")" && pwd)"
+memory_mb=512
+
+# Prints "<cold start ms> <peak RSS MB>" for one cold invocation
+measure() {
+    name="$1"
+    mode="$2"
+    payload="$3"
+    dir="$root/$name"
+
+    case "$name" in
+        syncbusalerts)  handler="us.feury.martasync.MartaSyncFunction" ;;
+        querybusalerts) handler="us.feury.martasync.MartaQueryFunction" ;;
+        *) echo "Unknown function: $name" >&2; exit 1 ;;
+    esac
+
+    case "$mode" in
+        jvm)
+            set -- -v "$dir/target/$name.jar:/var/task/lib/$name.jar:ro" public.ecr.aws/lambda/java:11
+            ;;
+        native)
+            task="$dir/target/native-task"
+            rm -rf "$task"
+            unzip -q "$dir/target/$name-native.zip" -d "$task"
+            set -- -v "$task:/var/task:ro" -v "$task/bootstrap:/var/runtime/bootstrap:ro" \
+                   public.ecr.aws/lambda/provided:al2
+            ;;
+        *) echo "Unknown mode: $mode" >&2; exit 1 ;;
+    esac
+
+    container=$(docker run -d --rm --network host --memory "${memory_mb}m" \
+                    -e AWS_LAMBDA_FUNCTION_MEMORY_SIZE=$memory_mb \
+                    -e AWS_REGION -e AWS_ACCESS_KEY_ID -e AWS_SECRET_ACCESS_KEY -e AWS_SESSION_TOKEN \
+                    -e DYNAMODB_ENDPOINT -e SSM_ENDPOINT -e TWITTER_API_URL \
+                    "$@" "$handler")
+    sleep 1
+
+    # The emulator starts the runtime on the first invocation, so this round trip is the cold start
+    start=$(date +%s%N)
+    curl -s -o /dev/null -d "$payload" http://localhost:8080/2015-03-31/functions/function/invocations
+    end=$(date +%s%N)
+
+    # The runtime is the largest process in the container
+    rss=$(docker exec "$container" sh -c 'cat /proc/[0-9]*/status' 2>/dev/null \
+              | awk '/VmHWM/ { if ($2 > max) max = $2 } END { print max + 0 }')
+
+    docker stop "$container" >/dev/null
+    echo "$(( (end - start) / 1000000 )) $(( rss / 1024 ))"
+}
+
+# Middle value of a column of numbers
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+if [ "$1" = "all" ]; then
+    runs="${2:-5}"
+    echo "| Function | Build | Cold start (ms, median of $runs) | Peak RSS (MB, median of $runs) |"
+    echo "|---|---|---|---|"
+    for name in syncbusalerts querybusalerts; do
+        for mode in jvm native; do
+            results=""
+            i=0
+            while [ $i -lt "$runs" ]; do
+                results="$results$(measure "$name" "$mode" "{}")
+"
+                i=$(( i + 1 ))
+            done
+            coldstart=$(printf "%s" "$results" | awk '{print $1}' | median)
+            rss=$(printf "%s" "$results" | awk '{print $2}' | median)
+            echo "| $name | $mode | $coldstart | $rss |"
+        done
+    done
+else
+    name="$1"
+    mode="$2"
+    set -- $(measure "$name" "$mode" "${3:-"{}"}")
+    echo "$name ($mode): cold start $1 ms, peak RSS $2 MB"
+fi
@@ -27,10 +27,12 @@ import org.slf4j.LoggerFactory;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.SystemPropertyCredentialsProvider;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
@@ -38,6 +40,9 @@ import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import us.feury.martasync.store.AlertRecord;
+import us.feury.martasync.store.AlertRecordCodec;
+import us.feury.martasync.store.AlertTable;
 
 /**
  * Lambda function entry point.
@@ -48,10 +53,6 @@ import software.amazon.awssdk.services.dynamodb.model.TableDescription;
  */
 public class MartaQueryFunction implements RequestHandler<MartaQueryInput, MartaQueryOutput> {
     
-    // Constants
-    private static final Region REGION = Region.US_EAST_1;
-    private static final String DYNAMODB_TABLE_NAME = "ActiveAlerts";
-    
     // Clients
     private final DynamoDbClient dynamoDbClient;
 
@@ -60,17 +61,24 @@ public class MartaQueryFunction implements RequestHandler<MartaQueryInput, Marta
 
     public MartaQueryFunction() {
         
+        // Resolve region & endpoint, which may be overridden for local testing
+        QuerySettings settings = QuerySettings.fromEnvironment();
+        if (log.isDebugEnabled()) log.debug("Settings: {}", settings);
+
         // Init DynamoDB client & verify table exists
-        this.dynamoDbClient = 
+        DynamoDbClientBuilder dynamoDbBuilder = 
                 DynamoDbClient.builder()
-                              .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-                              .region(REGION)
-                              .httpClientBuilder(UrlConnectionHttpClient.builder())
-                              .build();
+                              .credentialsProvider(AwsCredentialsProviderChain.of(
+                                                        EnvironmentVariableCredentialsProvider.create(),
+                                                        SystemPropertyCredentialsProvider.create()))
+                              .region(settings.getRegion())
+                              .httpClientBuilder(UrlConnectionHttpClient.builder());
+        settings.getDynamoDbEndpoint().ifPresent(dynamoDbBuilder::endpointOverride);
+        this.dynamoDbClient = dynamoDbBuilder.build();
         TableDescription table = 
                 this.dynamoDbClient.describeTable(
                                         DescribeTableRequest.builder()
-                                                            .tableName(DYNAMODB_TABLE_NAME)
+                                                            .tableName(AlertTable.TABLE_NAME)
                                                             .build()
                                     ).table();
         if (log.isDebugEnabled()) log.debug("Table found: {}", table.tableId());
@@ -94,8 +102,8 @@ public class MartaQueryFunction implements RequestHandler<MartaQueryInput, Marta
         queryAttribute.put(":route", AttributeValue.fromS(route));
         QueryRequest query = 
                 QueryRequest.builder()
-                            .tableName(DYNAMODB_TABLE_NAME)
-                            .keyConditionExpression("Route = :route")
+                            .tableName(AlertTable.TABLE_NAME)
+                            .keyConditionExpression(AlertTable.ATTR_ROUTE + " = :route")
                             .expressionAttributeValues(queryAttribute)
                             .scanIndexForward(false)
                             .build();
@@ -113,27 +121,11 @@ public class MartaQueryFunction implements RequestHandler<MartaQueryInput, Marta
 
     private void parseToResult(Map<String, AttributeValue> itemData, MartaQueryOutput result) {
         
-        String route =
-                Optional.ofNullable(itemData.get("Route"))
-                        .map(AttributeValue::s)
-                        .orElse("Unknown");
-
-        String created =
-                Optional.ofNullable(itemData.get("Created"))
-                        .map(AttributeValue::n)
-                        .map(Long::decode)
-                        .map(l->Instant.ofEpochSecond(l).toString())
-                        .orElse("");
-
-        String text =
-                Optional.ofNullable(itemData.get("Text"))
-                        .map(AttributeValue::s)
-                        .orElse("");
-
+        AlertRecord alert = AlertRecordCodec.fromItem(itemData);
         result.putTweet(
-                    route,
-                    created,
-                    text
+                    alert.getRoute(),
+                    Instant.ofEpochSecond(alert.getCreated()).toString(),
+                    alert.getText()
                 );
     }
 
@@ -142,7 +134,7 @@ public class MartaQueryFunction implements RequestHandler<MartaQueryInput, Marta
         // Build a scan (all-item query) with created time descending
         final ScanRequest scan =
                 ScanRequest.builder()
-                           .tableName(DYNAMODB_TABLE_NAME)
+                           .tableName(AlertTable.TABLE_NAME)
                            .build();
         ScanResponse response = this.dynamoDbClient.scan(scan);
 
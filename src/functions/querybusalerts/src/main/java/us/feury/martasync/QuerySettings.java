@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync;
+
+import java.net.URI;
+import java.util.Optional;
+
+import software.amazon.awssdk.regions.Region;
+
+/**
+ * Runtime settings for {@link MartaQueryFunction}. Values are read from the Lambda environment,
+ * and a JVM system property of the same name takes precedence so the function can be pointed
+ * at local endpoints when driven in-process.
+ *
+ * @author Andrew Feury
+ */
+public class QuerySettings {
+
+    // Setting names
+    public static final String REGION = "AWS_REGION";
+    public static final String DYNAMODB_ENDPOINT = "DYNAMODB_ENDPOINT";
+
+    // Defaults
+    private static final Region DEFAULT_REGION = Region.US_EAST_1;
+
+    private final Region region;
+    private final Optional<URI> dynamoDbEndpoint;
+
+    private QuerySettings() {
+        this.region = lookup(REGION).map(Region::of).orElse(DEFAULT_REGION);
+        this.dynamoDbEndpoint = lookup(DYNAMODB_ENDPOINT).map(URI::create);
+    }
+
+    public static QuerySettings fromEnvironment() {
+        return new QuerySettings();
+    }
+
+    public Region getRegion() {
+        return region;
+    }
+
+    public Optional<URI> getDynamoDbEndpoint() {
+        return dynamoDbEndpoint;
+    }
+
+    private static Optional<String> lookup(String name) {
+        return Optional.ofNullable(System.getProperty(name, System.getenv(name)))
+                       .filter(s->!s.isBlank());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuerySettings [region=%s, dynamoDbEndpoint=%s]", region, dynamoDbEndpoint);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync;
+
+import java.util.concurrent.CompletableFuture;
+
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.ssm.SsmAsyncClient;
+import software.amazon.awssdk.services.ssm.SsmAsyncClientBuilder;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.PutParameterRequest;
+import software.amazon.awssdk.services.ssm.model.PutParameterResponse;
+
+/**
+ * Non-blocking clients sharing one pooled Netty transport. Calls overlap without tying up a
+ * thread each, at the cost of starting Netty's event loop on cold start.
+ *
+ * @author Andrew Feury
+ */
+class AsyncAwsClients implements AwsClients {
+
+    // Constants
+    private static final int MAX_CONNECTIONS = 16;
+
+    // Clients
+    private final DynamoDbAsyncClient dynamoDbClient;
+    private final SsmAsyncClient ssmClient;
+
+    AsyncAwsClients(SyncSettings settings) {
+        SdkAsyncHttpClient httpClient = 
+                NettyNioAsyncHttpClient.builder()
+                                       .maxConcurrency(MAX_CONNECTIONS)
+                                       .build();
+
+        DynamoDbAsyncClientBuilder dynamoDbBuilder = 
+                DynamoDbAsyncClient.builder()
+                                   .credentialsProvider(AwsClients.dynamoDbCredentials())
+                                   .region(settings.getRegion())
+                                   .httpClient(httpClient);
+        settings.getDynamoDbEndpoint().ifPresent(dynamoDbBuilder::endpointOverride);
+        this.dynamoDbClient = dynamoDbBuilder.build();
+
+        SsmAsyncClientBuilder ssmBuilder = 
+                SsmAsyncClient.builder()
+                              .region(settings.getRegion())
+                              .httpClient(httpClient);
+        settings.getSsmEndpoint().ifPresent(ssmBuilder::endpointOverride);
+        this.ssmClient = ssmBuilder.build();
+    }
+
+    @Override
+    public CompletableFuture<DescribeTableResponse> describeTable(DescribeTableRequest request) {
+        return this.dynamoDbClient.describeTable(request);
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+        return this.dynamoDbClient.batchWriteItem(request);
+    }
+
+    @Override
+    public CompletableFuture<GetParameterResponse> getParameter(GetParameterRequest request) {
+        return this.ssmClient.getParameter(request);
+    }
+
+    @Override
+    public CompletableFuture<GetParametersResponse> getParameters(GetParametersRequest request) {
+        return this.ssmClient.getParameters(request);
+    }
+
+    @Override
+    public CompletableFuture<PutParameterResponse> putParameter(PutParameterRequest request) {
+        return this.ssmClient.putParameter(request);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync;
+
+import java.util.concurrent.CompletableFuture;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.SystemPropertyCredentialsProvider;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.PutParameterRequest;
+import software.amazon.awssdk.services.ssm.model.PutParameterResponse;
+
+/**
+ * The DynamoDB & SSM calls made by {@link MartaSyncFunction}. Both implementations return
+ * futures so the sync runs the same way in either {@link SyncSettings.SyncMode}; only the
+ * transport differs.
+ *
+ * @author Andrew Feury
+ */
+interface AwsClients {
+
+    CompletableFuture<DescribeTableResponse> describeTable(DescribeTableRequest request);
+
+    CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request);
+
+    CompletableFuture<GetParameterResponse> getParameter(GetParameterRequest request);
+
+    CompletableFuture<GetParametersResponse> getParameters(GetParametersRequest request);
+
+    CompletableFuture<PutParameterResponse> putParameter(PutParameterRequest request);
+
+    static AwsClients create(SyncSettings settings) {
+        switch (settings.getSyncMode()) {
+            case ASYNC:
+                return new AsyncAwsClients(settings);
+            case BLOCKING:
+            default:
+                return new BlockingAwsClients(settings);
+        }
+    }
+
+    /** Credentials for DynamoDB, which may be overridden by system properties for local testing */
+    static AwsCredentialsProvider dynamoDbCredentials() {
+        return AwsCredentialsProviderChain.of(
+                    EnvironmentVariableCredentialsProvider.create(),
+                    SystemPropertyCredentialsProvider.create());
+    }
+}
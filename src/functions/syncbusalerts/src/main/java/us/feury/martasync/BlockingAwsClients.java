@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.SsmClientBuilder;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.PutParameterRequest;
+import software.amazon.awssdk.services.ssm.model.PutParameterResponse;
+
+/**
+ * Blocking clients on the lightweight URL connection transport, which starts fastest. Each call
+ * blocks one of a few worker threads rather than the caller, so the HttpClient threads that
+ * parse Twitter pages keep downloading while earlier pages are written.
+ *
+ * @author Andrew Feury
+ */
+class BlockingAwsClients implements AwsClients {
+
+    // Constants
+    private static final int WORKER_THREADS = 4;
+
+    // Clients
+    private final DynamoDbClient dynamoDbClient;
+    private final SsmClient ssmClient;
+    private final ExecutorService executor;
+
+    BlockingAwsClients(SyncSettings settings) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(WORKER_THREADS, r->{
+            Thread thread = new Thread(r, "aws-blocking-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        DynamoDbClientBuilder dynamoDbBuilder = 
+                DynamoDbClient.builder()
+                              .credentialsProvider(AwsClients.dynamoDbCredentials())
+                              .region(settings.getRegion())
+                              .httpClientBuilder(UrlConnectionHttpClient.builder());
+        settings.getDynamoDbEndpoint().ifPresent(dynamoDbBuilder::endpointOverride);
+        this.dynamoDbClient = dynamoDbBuilder.build();
+
+        SsmClientBuilder ssmBuilder = 
+                SsmClient.builder()
+                         .region(settings.getRegion())
+                         .httpClientBuilder(UrlConnectionHttpClient.builder());
+        settings.getSsmEndpoint().ifPresent(ssmBuilder::endpointOverride);
+        this.ssmClient = ssmBuilder.build();
+    }
+
+    @Override
+    public CompletableFuture<DescribeTableResponse> describeTable(DescribeTableRequest request) {
+        return call(()->this.dynamoDbClient.describeTable(request));
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+        return call(()->this.dynamoDbClient.batchWriteItem(request));
+    }
+
+    @Override
+    public CompletableFuture<GetParameterResponse> getParameter(GetParameterRequest request) {
+        return call(()->this.ssmClient.getParameter(request));
+    }
+
+    @Override
+    public CompletableFuture<GetParametersResponse> getParameters(GetParametersRequest request) {
+        return call(()->this.ssmClient.getParameters(request));
+    }
+
+    @Override
+    public CompletableFuture<PutParameterResponse> putParameter(PutParameterRequest request) {
+        return call(()->this.ssmClient.putParameter(request));
+    }
+
+    /** Runs the request on a worker; an SdkException it throws fails the future */
+    private <T> CompletableFuture<T> call(Supplier<T> request) {
+        return CompletableFuture.supplyAsync(request, this.executor);
+    }
+}
@@ -19,17 +19,31 @@
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,29 +54,43 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
-import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
 import software.amazon.awssdk.services.dynamodb.model.TableDescription;
-import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
 import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
-import software.amazon.awssdk.services.ssm.model.ParameterNotFoundException;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
 import software.amazon.awssdk.services.ssm.model.ParameterType;
 import software.amazon.awssdk.services.ssm.model.PutParameterRequest;
 import us.feury.martasync.api.TwitterApiException;
 import us.feury.martasync.api.TwitterSearchData;
 import us.feury.martasync.api.TwitterSearchResponse;
+import us.feury.martasync.feed.FeedDefinition;
+import us.feury.martasync.feed.FeedParser;
+import us.feury.martasync.store.AlertRecord;
+import us.feury.martasync.store.AlertRecordCodec;
+import us.feury.martasync.store.AlertTable;
+import us.feury.martasync.store.archive.AlertArchive;
+import us.feury.martasync.store.archive.S3ArchiveStore;
 
 /**
  * Lambda function entry point. We don't care about the inputs & outputs since the only
  * action we need to do is update from the Twitter search API.
+ * <p>
+ * Every feed is paged through concurrently and each page's alerts are written while the next
+ * page downloads; cursors only move once every write is durable. DynamoDB & SSM calls overlap
+ * too, on a few worker threads in {@link SyncSettings.SyncMode#BLOCKING} mode or on the
+ * non-blocking transport in {@link SyncSettings.SyncMode#ASYNC} mode.
+ * Searches only reach back as far as alerts are retained, so a feed without a cursor does not
+ * backfill a week of already expired alerts.
  * 
  * @author Andrew Feury
  * @see <a href=https://docs.aws.amazon.com/lambda/latest/dg/java-handler.html>Lambda Java Handler</a>
@@ -71,20 +99,26 @@ import us.feury.martasync.api.TwitterSearchResponse;
 public class MartaSyncFunction implements RequestHandler<Object, Integer> {
     
     // Constants
-    private static final Pattern PATTERN_ROUTE = Pattern.compile("(?<=Route )\\w+(?=:)");
     private static final String PARAMETER_BEARER_TOKEN = "/MartaServiceSyncer/TwitterAPI/BearerToken";
-    private static final String PARAMETER_LAST_TWEET = "/MartaServiceSyncer/TwitterAPI/LastTweetId";
-    private static final Region REGION = Region.US_EAST_1;
-    private static final String DYNAMODB_TABLE_NAME = "ActiveAlerts";
-    private static final String URL_SEARCH_TWEETS = "https://api.twitter.com/2/tweets/search/recent?query=from%3AMARTAservice+route&sort_order=recency&tweet.fields=created_at";
+    private static final String PATH_SEARCH_TWEETS = "/2/tweets/search/recent";
+    private static final String SEARCH_OPTIONS = "sort_order=recency&tweet.fields=created_at&max_results=100";
+    private static final int SSM_MAX_GET_PARAMETERS = 10;
+    private static final int MAX_PAGES_PER_FEED = 10;
+    private static final int DYNAMODB_MAX_BATCH_WRITE = 25;
+    private static final int DYNAMODB_MAX_WRITES_IN_FLIGHT = 2;
+    private static final int DYNAMODB_MAX_BATCH_ATTEMPTS = 5;
+    private static final long DYNAMODB_BATCH_BACKOFF_MILLIS = 100;
+    private static final int ARCHIVE_THREADS = 4;
 
     // Clients
-    private final DynamoDbClient dynamoDbClient;
-    private final SsmClient ssmClient;
+    private final AwsClients awsClients;
     private final HttpClient httpClient;
 
     // Parameters
     private final String twitterToken;
+    private final String searchTweetsUrl;
+    private final List<FeedParser> feeds;
+    private final Optional<AlertArchive> archive;
 
     // Logger
     private static final Logger log = LoggerFactory.getLogger(MartaSyncFunction.class);
@@ -97,147 +131,271 @@ public class MartaSyncFunction implements RequestHandler<Object, Integer> {
      */
     public MartaSyncFunction() {
 
-        // Init DynamoDB client & verify table exists
-        this.dynamoDbClient = 
-                DynamoDbClient.builder()
-                              .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-                              .region(REGION)
-                              .httpClientBuilder(UrlConnectionHttpClient.builder())
-                              .build();
-        TableDescription table = 
-                this.dynamoDbClient.describeTable(
-                                        DescribeTableRequest.builder()
-                                                            .tableName(DYNAMODB_TABLE_NAME)
-                                                            .build()
-                                    ).table();
-        if (log.isDebugEnabled()) log.debug("Table found: {}", table.tableId());
-        
-        // Init SSM Client & connect to Parameter Store to fetch the bearer token
-        this.ssmClient = 
-                SsmClient.builder()
-                         .region(REGION)
-                         .httpClientBuilder(UrlConnectionHttpClient.builder())
-                         .build();
-        this.twitterToken = 
-                this.ssmClient.getParameter(
-                                        GetParameterRequest.builder()
-                                                           .name(PARAMETER_BEARER_TOKEN)
-                                                           .build()
-                                ).parameter().value();
-        if (log.isDebugEnabled()) log.debug("Token found: {}...", this.twitterToken.substring(0, 8));
-
-        // Initialize HttpClient to call Twitter API
-        this.httpClient = HttpClient.newHttpClient();
+        // Resolve region & endpoints, which may be overridden for local testing
+        SyncSettings settings = SyncSettings.fromEnvironment();
+        if (log.isDebugEnabled()) log.debug("Settings: {}", settings);
 
         // Initialize Jackson ObjectMapper w/ Jaya 8+ time support
         this.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        // Compile the search feeds to ingest
+        this.feeds = loadFeeds(settings.getTwitterFeeds());
+
+        // Keep alerts beyond the table's TTL when an archive bucket or directory is configured
+        this.archive = loadArchive(settings);
+
+        // DynamoDB & SSM clients on the transport of the configured sync mode
+        this.awsClients = AwsClients.create(settings);
+
+        // Verify table exists & fetch the bearer token from Parameter Store
+        CompletableFuture<DescribeTableResponse> tableLookup = 
+                this.awsClients.describeTable(
+                                    DescribeTableRequest.builder()
+                                                        .tableName(AlertTable.TABLE_NAME)
+                                                        .build()
+                                );
+        CompletableFuture<GetParameterResponse> tokenLookup = 
+                this.awsClients.getParameter(
+                                    GetParameterRequest.builder()
+                                                       .name(PARAMETER_BEARER_TOKEN)
+                                                       .build()
+                                );
+
+        // Both lookups are in flight together in async mode
+        TableDescription table = tableLookup.join().table();
+        if (log.isDebugEnabled()) log.debug("Table found: {}", table.tableId());
+        this.twitterToken = tokenLookup.join().parameter().value();
+        if (log.isDebugEnabled()) log.debug("Token found: {}...", this.twitterToken.substring(0, 8));
+
+        // Initialize HttpClient to call Twitter API; one HTTP/2 connection is shared by all feeds
+        this.httpClient = 
+                HttpClient.newBuilder()
+                          .version(HttpClient.Version.HTTP_2)
+                          .build();
+        this.searchTweetsUrl = settings.getTwitterApiUrl() + PATH_SEARCH_TWEETS;
     }
 
     @Override
     public Integer handleRequest(final Object input, final Context context) {
         
-        // Get latest tweet to avoid duplication
-        Optional<String> latestTweetId;
-        try {
-            GetParameterResponse response = 
-                    ssmClient.getParameter(GetParameterRequest.builder()
-                                                              .name(PARAMETER_LAST_TWEET)
-                                                              .build());
-            latestTweetId = Optional.of(response.parameter().value());
-        } catch (ParameterNotFoundException e) {
-            // This is ok, we'll create it later
-            log.info("Last tweet parameter not found", e);
-            latestTweetId = Optional.empty();
-        }
+        // Get latest tweet of every feed to avoid duplication
+        Map<String, String> cursors = fetchCursors().join();
         
-        // Call the Twitter API to search for latest Marta alerts
-        TwitterSearchResponse tweets;
-        try {
-            tweets = callTwitterApi(latestTweetId);
-        } catch (TwitterApiException e) {
-            log.error("Twitter API failure", e);
-            return HttpStatusCode.BAD_GATEWAY;
+        // Page through all feeds at once; writes start as soon as each page is parsed
+        SyncRun run = new SyncRun(Instant.now().getEpochSecond() - AlertTable.RETENTION_SECONDS);
+        List<CompletableFuture<FeedResult>> searches = new ArrayList<>(this.feeds.size());
+        for (FeedParser parser : this.feeds) {
+            Optional<String> latestTweetId = 
+                    Optional.ofNullable(cursors.get(parser.getFeed().getCursorParameter()));
+            searches.add(searchFeed(parser, latestTweetId, Optional.empty(), 1, run));
+        }
+
+        // Every write of a feed is submitted before its search completes, successfully or not
+        Map<FeedParser, FeedResult> results = new LinkedHashMap<>();
+        boolean feedFailed = false;
+        for (int i = 0; i < searches.size(); i++) {
+            FeedParser parser = this.feeds.get(i);
+            try {
+                FeedResult result = searches.get(i).join();
+                log.info("Found {} tweets to process in {} feed", result.tweets, parser.getFeed().getName());
+                results.put(parser, result);
+            } catch (CompletionException e) {
+                log.error("Twitter API failure in {} feed", parser.getFeed().getName(), e.getCause());
+                feedFailed = true;
+            }
+        }
+
+        // Archive while the writes drain; alerts archived again after a failed write are counted once
+        this.archive.ifPresent(a->archiveAlerts(a, run.alerts.values()));
+
+        // Persist every alert before any cursor moves, so a failed write is retried next run
+        if (!run.awaitWrites()) {
+            return HttpStatusCode.INTERNAL_SERVER_ERROR;
         }
-        log.info("Found {} tweets to process", tweets.getMeta().getResultCount());
-
-        // Iterate and persist every Tweet
-        tweets.getData().forEach(this::PersistTweet);
-
-        // Store latest tweet to avoid duplication the next time we run
-        if (tweets.getMeta().getResultCount()>0) {
-            String latestTweetFound = tweets.getMeta().getNewestTweetId();
-            if (log.isDebugEnabled()) log.debug("Storing latest tweet: {}", latestTweetFound);
-
-            ssmClient.putParameter(PutParameterRequest.builder()
-                                                      .name(PARAMETER_LAST_TWEET)
-                                                      .value(latestTweetFound)
-                                                      .overwrite(true)
-                                                      .type(ParameterType.STRING)
-                                                      .build()
-                                    );
+
+        // Store latest tweet per feed to avoid duplication the next time we run
+        List<CompletableFuture<?>> cursorUpdates = new ArrayList<>(results.size());
+        for (Map.Entry<FeedParser, FeedResult> result : results.entrySet()) {
+            String latestTweetFound = result.getValue().newestTweetId;
+            if (latestTweetFound != null) {
+                if (log.isDebugEnabled()) log.debug("Storing latest tweet of {} feed: {}", result.getKey().getFeed().getName(), latestTweetFound);
+
+                cursorUpdates.add(awsClients.putParameter(PutParameterRequest.builder()
+                                                                            .name(result.getKey().getFeed().getCursorParameter())
+                                                                            .value(latestTweetFound)
+                                                                            .overwrite(true)
+                                                                            .type(ParameterType.STRING)
+                                                                            .build()
+                                                          ));
+            }
         }
 
-        return HttpStatusCode.OK;
+        CompletableFuture.allOf(cursorUpdates.toArray(new CompletableFuture<?>[0])).join();
+
+        return feedFailed ? HttpStatusCode.BAD_GATEWAY : HttpStatusCode.OK;
     }
 
-    private void PersistTweet(TwitterSearchData tweetData) {
-        Map<String, AttributeValue> attributesMap = new HashMap<>();        
-        
-        // Verify expected attributes are present in the response
-        if (!tweetData.validate()) {
-            log.warn("Skipping malformed tweet data: {}", tweetData);
-            return;
+    private List<FeedParser> loadFeeds(Optional<String> configuredFeeds) {
+        List<FeedDefinition> definitions;
+        if (configuredFeeds.isPresent()) {
+            try {
+                definitions = Arrays.asList(this.mapper.readValue(configuredFeeds.get(), FeedDefinition[].class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Bad " + SyncSettings.TWITTER_FEEDS + " setting", e);
+            }
+        } else {
+            definitions = FeedDefinition.defaults();
         }
 
-        // Route
-        Matcher routeMatcher = PATTERN_ROUTE.matcher(tweetData.getText());
-        if (!routeMatcher.find()) {
-            log.warn("Skipping tweet of undiscernible route: {}", tweetData);
-            return;
+        List<FeedParser> parsers = new ArrayList<>(definitions.size());
+        for (FeedDefinition definition : definitions) {
+            if (!definition.validate()) {
+                throw new IllegalArgumentException("Incomplete feed definition: " + definition);
+            }
+            parsers.add(new FeedParser(definition));
+        }
+        log.info("Ingesting feeds: {}", definitions);
+        return parsers;
+    }
+
+    private static Optional<AlertArchive> loadArchive(SyncSettings settings) {
+        if (settings.getArchiveBucket().isPresent()) {
+            S3ClientBuilder s3Builder = 
+                    S3Client.builder()
+                            .region(settings.getRegion())
+                            .httpClientBuilder(UrlConnectionHttpClient.builder());
+            settings.getS3Endpoint().ifPresent(e->s3Builder.endpointOverride(e)
+                                                           .serviceConfiguration(S3Configuration.builder()
+                                                                                                .pathStyleAccessEnabled(true)
+                                                                                                .build()));
+            // Compaction reads & deletes a day's parts concurrently
+            ExecutorService executor = Executors.newFixedThreadPool(ARCHIVE_THREADS, r->{
+                Thread thread = new Thread(r, "archive-io");
+                thread.setDaemon(true);
+                return thread;
+            });
+            return Optional.of(new AlertArchive(new S3ArchiveStore(s3Builder.build(), settings.getArchiveBucket().get()), executor));
+        }
+        return settings.getArchiveDirectory().map(AlertArchive::new);
+    }
+
+    private CompletableFuture<Map<String, String>> fetchCursors() {
+        List<String> names = 
+                this.feeds.stream()
+                          .map(p->p.getFeed().getCursorParameter())
+                          .distinct()
+                          .collect(Collectors.toList());
+
+        Map<String, String> cursors = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> lookups = new ArrayList<>();
+        for (int start = 0; start < names.size(); start += SSM_MAX_GET_PARAMETERS) {
+            lookups.add(awsClients.getParameters(GetParametersRequest.builder()
+                                                                    .names(names.subList(start, Math.min(start + SSM_MAX_GET_PARAMETERS, names.size())))
+                                                                    .build())
+                                 .thenAccept(response->{
+                                     response.parameters().forEach(p->cursors.put(p.name(), p.value()));
+                                     if (response.hasInvalidParameters() && !response.invalidParameters().isEmpty()) {
+                                         // This is ok, we'll create them later
+                                         log.info("Last tweet parameters not found: {}", response.invalidParameters());
+                                     }
+                                 }));
+        }
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+                                .thenApply(v->cursors);
+    }
+
+    /**
+     * Fetches one page of a feed and everything after it. The next page is requested before this
+     * one is parsed, so parsing and writes overlap the download. Paging stops at the retention
+     * cutoff or after {@value #MAX_PAGES_PER_FEED} pages, whichever comes first.
+     */
+    private CompletableFuture<FeedResult> searchFeed(FeedParser parser, Optional<String> lastTweetId, Optional<String> nextToken, int page, SyncRun run) {
+        Optional<Instant> startTime = lastTweetId.isPresent() ? Optional.empty() : Optional.of(Instant.ofEpochSecond(run.cutoff));
+        return callTwitterApi(parser.getFeed(), lastTweetId, startTime, nextToken)
+                    .thenCompose(tweets->{
+                        // Results are newest first, so once the oldest tweet of a page has expired every later page has too
+                        List<TwitterSearchData> data = tweets.getData();
+                        TwitterSearchData oldest = data.isEmpty() ? null : data.get(data.size() - 1);
+                        boolean expired = oldest != null && oldest.validate() && oldest.getCreatedAt().toEpochSecond() < run.cutoff;
+                        String next = tweets.getMeta().getNextToken();
+                        boolean more = next != null && !expired;
+                        if (more && page >= MAX_PAGES_PER_FEED) {
+                            log.warn("Stopping {} feed after {} pages, older tweets are skipped", parser.getFeed().getName(), page);
+                        }
+                        CompletableFuture<FeedResult> rest = 
+                                more && page < MAX_PAGES_PER_FEED
+                                        ? searchFeed(parser, lastTweetId, Optional.of(next), page + 1, run)
+                                        : CompletableFuture.completedFuture(FeedResult.EMPTY);
+                        try {
+                            run.write(parser.parse(tweets));
+                        } catch (RuntimeException e) {
+                            // Let the pages already requested submit their writes before failing the feed
+                            return rest.<FeedResult>handle((r, error)->{
+                                throw new CompletionException(e);
+                            });
+                        }
+                        return rest.thenApply(r->r.precededBy(tweets.getMeta().getNewestTweetId(), tweets.getMeta().getResultCount()));
+                    });
+    }
+
+    private void archiveAlerts(AlertArchive archive, Collection<AlertRecord> alerts) {
+        if (alerts.isEmpty()) return;
+        try {
+            long start = System.nanoTime();
+            archive.append(alerts);
+            log.info("Archived {} alerts in {} ms", alerts.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            // The table is the system of record; a missed archive write is not worth failing the sync
+            log.error("Unable to archive {} alerts", alerts.size(), e);
         }
-        String route = routeMatcher.group();
-        attributesMap.put("Route", AttributeValue.builder().s(route).build());
-
-        // Text
-        String text = String.join("", 
-                                tweetData.getText().split(
-                                            String.format("Route %s: ", route))
-                            ).replace("\\n", " ")
-                             .trim();
-        attributesMap.put("Text", AttributeValue.builder().s(text).build());
-        
-        // Created
-        long unixEpochTime = tweetData.getCreatedAt().toEpochSecond();
-        attributesMap.put("Created", AttributeValue.builder().n(String.valueOf(unixEpochTime)).build());
-
-        // Expires
-        long expirationTime = tweetData.getCreatedAt().plusDays(1).toEpochSecond();
-        attributesMap.put("Expires", AttributeValue.builder().n(String.valueOf(expirationTime)).build());
-
-        // Persist
-        log.info("Sending to DynamoDB: {}", attributesMap);
-        PutItemResponse response = 
-                this.dynamoDbClient.putItem(PutItemRequest.builder()
-                                                          .tableName(DYNAMODB_TABLE_NAME)
-                                                          .item(attributesMap)
-                                                          .build());
-        if (log.isDebugEnabled()) log.debug("PutItem result: {}", response);
     }
 
-    private TwitterSearchResponse callTwitterApi(Optional<String> lastTweetId) throws TwitterApiException {
+    private CompletableFuture<Boolean> writeBatch(Map<String, List<WriteRequest>> requestItems, int attempt) {
+        return this.awsClients.batchWriteItem(BatchWriteItemRequest.builder()
+                                                                       .requestItems(requestItems)
+                                                                       .build())
+                    .thenCompose(response->{
+                        if (log.isDebugEnabled()) log.debug("BatchWriteItem result: {}", response);
+                        if (!response.hasUnprocessedItems() || response.unprocessedItems().isEmpty()) {
+                            return CompletableFuture.completedFuture(true);
+                        }
+                        if (attempt + 1 >= DYNAMODB_MAX_BATCH_ATTEMPTS) {
+                            log.error("Unable to persist {} alerts", response.unprocessedItems().get(AlertTable.TABLE_NAME).size());
+                            return CompletableFuture.completedFuture(false);
+                        }
+
+                        // Throttled writes come back unprocessed; back off before retrying just those
+                        return CompletableFuture.supplyAsync(()->response.unprocessedItems(),
+                                                             CompletableFuture.delayedExecutor(DYNAMODB_BATCH_BACKOFF_MILLIS << attempt, TimeUnit.MILLISECONDS))
+                                                .thenCompose(unprocessed->writeBatch(unprocessed, attempt + 1));
+                    })
+                    .exceptionally(e->{
+                        log.error("BatchWriteItem failure", e);
+                        return false;
+                    });
+    }
+
+    private CompletableFuture<TwitterSearchResponse> callTwitterApi(FeedDefinition feed, Optional<String> lastTweetId, Optional<Instant> startTime, Optional<String> nextToken) {
         
         // API path
         URI uri;
         try {
-            String apiPath;
+            String apiPath = String.format("%s?query=%s&%s", 
+                                    this.searchTweetsUrl, 
+                                    URLEncoder.encode(feed.getQuery(), StandardCharsets.UTF_8),
+                                    SEARCH_OPTIONS);
             if (lastTweetId.isPresent()) {
-                apiPath = String.format("%s&since_id=%s", URL_SEARCH_TWEETS, lastTweetId.get());
-            } else {
-                apiPath = URL_SEARCH_TWEETS;
+                apiPath = String.format("%s&since_id=%s", apiPath, lastTweetId.get());
+            }
+            if (startTime.isPresent()) {
+                apiPath = String.format("%s&start_time=%s", apiPath, startTime.get());
+            }
+            if (nextToken.isPresent()) {
+                apiPath = String.format("%s&next_token=%s", apiPath, nextToken.get());
             }
             uri = new URI(apiPath);
         } catch (URISyntaxException e) {
-            throw new TwitterApiException("Bad API Url", e);
+            return CompletableFuture.failedFuture(new TwitterApiException("Bad API Url", e));
         }
 
         // Bearer token
@@ -252,12 +410,20 @@ public class MartaSyncFunction implements RequestHandler<Object, Integer> {
                            .GET()
                            .build();
 
-        HttpResponse<String> response;
-        try {
-            response = this.httpClient.send(request, BodyHandlers.ofString());
-        } catch (IOException | InterruptedException e) {
-            throw new TwitterApiException("Failed to call Twitter API", e);
-        }
+        return this.httpClient.sendAsync(request, BodyHandlers.ofString())
+                              .handle((response, error)->{
+                                  try {
+                                      if (error != null) {
+                                          throw new TwitterApiException("Failed to call Twitter API", error);
+                                      }
+                                      return parseResponse(response);
+                                  } catch (TwitterApiException e) {
+                                      throw new CompletionException(e);
+                                  }
+                              });
+    }
+
+    private TwitterSearchResponse parseResponse(HttpResponse<String> response) throws TwitterApiException {
 
         if (response.statusCode()!=HttpStatusCode.OK) {
             throw new TwitterApiException("Something went wrong: " + response.body());
@@ -273,4 +439,85 @@ public class MartaSyncFunction implements RequestHandler<Object, Integer> {
 
         return parsed;
     }
+
+    /** Tweets found across all pages of one feed */
+    private static final class FeedResult {
+        private static final FeedResult EMPTY = new FeedResult(null, 0);
+
+        private final String newestTweetId;
+        private final int tweets;
+
+        FeedResult(String newestTweetId, int tweets) {
+            this.newestTweetId = newestTweetId;
+            this.tweets = tweets;
+        }
+
+        /** Adds an earlier page, whose newest tweet is the newest of the feed since results are sorted by recency */
+        FeedResult precededBy(String pageNewestTweetId, Integer pageTweets) {
+            return new FeedResult(pageNewestTweetId != null ? pageNewestTweetId : this.newestTweetId,
+                                  this.tweets + (pageTweets != null ? pageTweets : 0));
+        }
+    }
+
+    /** Alerts & DynamoDB writes of one invocation, shared by all feeds */
+    private final class SyncRun {
+        private final long cutoff;
+        private final Map<String, AlertRecord> alerts = new ConcurrentHashMap<>();
+        private final Queue<CompletableFuture<Boolean>> writes = new ConcurrentLinkedQueue<>();
+
+        // Batches queue up behind each other in a few lanes, so a small provisioned table isn't flooded
+        private final CompletableFuture<?>[] lanes = new CompletableFuture<?>[DYNAMODB_MAX_WRITES_IN_FLIGHT];
+        private int nextLane;
+
+        /**
+         * @param cutoff alerts created before this epoch second have already expired
+         */
+        SyncRun(long cutoff) {
+            this.cutoff = cutoff;
+            Arrays.fill(this.lanes, CompletableFuture.completedFuture(null));
+        }
+
+        /** Starts writing the alerts of one page; a tweet found by two feeds is kept once per route */
+        void write(List<AlertRecord> parsed) {
+            List<WriteRequest> requests = new ArrayList<>(parsed.size());
+            for (AlertRecord alert : parsed) {
+                if (alert.getCreated() < cutoff) continue;
+                if (alerts.putIfAbsent(alert.getRoute() + "@" + alert.getCreated(), alert) != null) continue;
+                log.info("Sending to DynamoDB: {}", alert);
+                requests.add(WriteRequest.builder()
+                                         .putRequest(PutRequest.builder()
+                                                               .item(AlertRecordCodec.toItem(alert))
+                                                               .build())
+                                         .build());
+            }
+
+            for (int start = 0; start < requests.size(); start += DYNAMODB_MAX_BATCH_WRITE) {
+                List<WriteRequest> batch = requests.subList(start, Math.min(start + DYNAMODB_MAX_BATCH_WRITE, requests.size()));
+                CompletableFuture<Boolean> write = new CompletableFuture<>();
+                CompletableFuture<?> previous = enqueue(write);
+                writes.add(write);
+
+                // Chained outside the lock, so a lane that is already idle starts the batch on this thread
+                previous.thenCompose(v->writeBatch(Map.of(AlertTable.TABLE_NAME, batch), 0))
+                        .whenComplete((persisted, error)->write.complete(error == null && persisted));
+            }
+        }
+
+        /** @return the write the next lane is busy with, after which the given one runs */
+        private synchronized CompletableFuture<?> enqueue(CompletableFuture<Boolean> write) {
+            CompletableFuture<?> previous = lanes[nextLane];
+            lanes[nextLane] = write;
+            nextLane = (nextLane + 1) % lanes.length;
+            return previous;
+        }
+
+        /** @return whether every write submitted so far succeeded */
+        boolean awaitWrites() {
+            boolean persisted = true;
+            for (CompletableFuture<Boolean> write : writes) {
+                persisted &= write.join();
+            }
+            return persisted;
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+import software.amazon.awssdk.regions.Region;
+
+/**
+ * Runtime settings for {@link MartaSyncFunction}. Values are read from the Lambda environment,
+ * and a JVM system property of the same name takes precedence so the function can be pointed
+ * at local endpoints when driven in-process.
+ *
+ * @author Andrew Feury
+ */
+public class SyncSettings {
+
+    // Setting names
+    public static final String REGION = "AWS_REGION";
+    public static final String DYNAMODB_ENDPOINT = "DYNAMODB_ENDPOINT";
+    public static final String SSM_ENDPOINT = "SSM_ENDPOINT";
+    public static final String TWITTER_API_URL = "TWITTER_API_URL";
+    public static final String TWITTER_FEEDS = "TWITTER_FEEDS";
+    public static final String ARCHIVE_DIRECTORY = "ARCHIVE_DIRECTORY";
+    public static final String ARCHIVE_BUCKET = "ARCHIVE_BUCKET";
+    public static final String S3_ENDPOINT = "S3_ENDPOINT";
+    public static final String SYNC_MODE = "SYNC_MODE";
+
+    /** Transport for the DynamoDB & SSM calls of a sync */
+    public enum SyncMode {
+        /** Blocking clients on the URL connection transport; the quickest to cold start */
+        BLOCKING,
+        /** Non-blocking clients on a pooled Netty transport; the most overlap for large syncs */
+        ASYNC
+    }
+
+    // Defaults
+    private static final Region DEFAULT_REGION = Region.US_EAST_1;
+    private static final String DEFAULT_TWITTER_API_URL = "https://api.twitter.com";
+    private static final SyncMode DEFAULT_SYNC_MODE = SyncMode.BLOCKING;
+
+    private final Region region;
+    private final Optional<URI> dynamoDbEndpoint;
+    private final Optional<URI> ssmEndpoint;
+    private final String twitterApiUrl;
+    private final Optional<String> twitterFeeds;
+    private final Optional<Path> archiveDirectory;
+    private final Optional<String> archiveBucket;
+    private final Optional<URI> s3Endpoint;
+    private final SyncMode syncMode;
+
+    private SyncSettings() {
+        this.region = lookup(REGION).map(Region::of).orElse(DEFAULT_REGION);
+        this.dynamoDbEndpoint = lookup(DYNAMODB_ENDPOINT).map(URI::create);
+        this.ssmEndpoint = lookup(SSM_ENDPOINT).map(URI::create);
+        this.twitterApiUrl = lookup(TWITTER_API_URL).orElse(DEFAULT_TWITTER_API_URL);
+        this.twitterFeeds = lookup(TWITTER_FEEDS);
+        this.archiveDirectory = lookup(ARCHIVE_DIRECTORY).map(Path::of);
+        this.archiveBucket = lookup(ARCHIVE_BUCKET);
+        this.s3Endpoint = lookup(S3_ENDPOINT).map(URI::create);
+        this.syncMode = lookup(SYNC_MODE).map(SyncSettings::parseSyncMode).orElse(DEFAULT_SYNC_MODE);
+    }
+
+    public static SyncSettings fromEnvironment() {
+        return new SyncSettings();
+    }
+
+    public Region getRegion() {
+        return region;
+    }
+
+    public Optional<URI> getDynamoDbEndpoint() {
+        return dynamoDbEndpoint;
+    }
+
+    public Optional<URI> getSsmEndpoint() {
+        return ssmEndpoint;
+    }
+
+    public String getTwitterApiUrl() {
+        return twitterApiUrl;
+    }
+
+    /**
+     * @return JSON array of {@link us.feury.martasync.feed.FeedDefinition}, if the default feeds
+     * are overridden
+     */
+    public Optional<String> getTwitterFeeds() {
+        return twitterFeeds;
+    }
+
+    /**
+     * @return local directory to keep the long-term alert archive in, used when no
+     * {@link #getArchiveBucket() bucket} is set
+     */
+    public Optional<Path> getArchiveDirectory() {
+        return archiveDirectory;
+    }
+
+    /**
+     * @return S3 bucket to keep the long-term alert archive in, if archiving to S3
+     */
+    public Optional<String> getArchiveBucket() {
+        return archiveBucket;
+    }
+
+    public Optional<URI> getS3Endpoint() {
+        return s3Endpoint;
+    }
+
+    public SyncMode getSyncMode() {
+        return syncMode;
+    }
+
+    private static SyncMode parseSyncMode(String value) {
+        try {
+            return SyncMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Bad " + SYNC_MODE + " setting: " + value, e);
+        }
+    }
+
+    private static Optional<String> lookup(String name) {
+        return Optional.ofNullable(System.getProperty(name, System.getenv(name)))
+                       .filter(s->!s.isBlank());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SyncSettings [region=%s, dynamoDbEndpoint=%s, ssmEndpoint=%s, twitterApiUrl=%s, twitterFeeds=%s, archiveDirectory=%s, archiveBucket=%s, s3Endpoint=%s, syncMode=%s]",
+                region, dynamoDbEndpoint, ssmEndpoint, twitterApiUrl, twitterFeeds, archiveDirectory, archiveBucket, s3Endpoint, syncMode);
+    }
+}
@@ -31,6 +31,9 @@ public class TwitterSearchMetadata {
     @JsonProperty("result_count")
     private Integer resultCount;
 
+    @JsonProperty("next_token")
+    private String nextToken;
+
     public String getNewestTweetId() {
         return newestTweetId;
     }
@@ -55,9 +58,17 @@ public class TwitterSearchMetadata {
         this.resultCount = resultCount;
     }
 
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+
     @Override
     public String toString() {
-        return String.format("TwitterSearchMetadata [newestTweetId=%s, oldestTweetId=%s, resultCount=%s]",
-                newestTweetId, oldestTweetId, resultCount);
+        return String.format("TwitterSearchMetadata [newestTweetId=%s, oldestTweetId=%s, resultCount=%s, nextToken=%s]",
+                newestTweetId, oldestTweetId, resultCount, nextToken);
     }
 }
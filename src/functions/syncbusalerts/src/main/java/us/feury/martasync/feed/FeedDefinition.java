@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.feed;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * One Twitter search to ingest. The {@code routePattern} is a regular expression locating the
+ * route key in each tweet: the {@code route} named group if it has one, otherwise the whole
+ * match. Twitter search ignores case, so patterns should too where the key can be shouted or
+ * lower-cased; {@link FeedParser} normalizes the case of the key. Each feed keeps its own
+ * {@code since_id} cursor in the given SSM parameter.
+ *
+ * @author Andrew Feury
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FeedDefinition {
+
+    private static final String PARAMETER_CURSOR_PREFIX = "/MartaServiceSyncer/TwitterAPI/LastTweetId";
+
+    // A capitalized word of a station name, other than the words around it in an outage tweet
+    private static final String STATION_WORD =
+            "(?!(?i:the|at|elevators?|escalators?|out|of|service)\\b)[A-Z][\\w/.-]*";
+
+    private String name;
+    private String query;
+    private String routePattern;
+    private String cursorParameter;
+
+    public FeedDefinition() {
+        // used by Jackson when feeds are configured
+    }
+
+    public FeedDefinition(String name, String query, String routePattern, String cursorParameter) {
+        this.name = name;
+        this.query = query;
+        this.routePattern = routePattern;
+        this.cursorParameter = cursorParameter;
+    }
+
+    /**
+     * Feeds ingested when none are configured. The bus feed keeps the original cursor parameter
+     * so existing deployments carry on from where they left off. Rail & streetcar searches also
+     * return tweets that only mention a line in passing, e.g. a bus detour near it, so those
+     * patterns only match a line named at the start of the tweet.
+     */
+    public static List<FeedDefinition> defaults() {
+        return List.of(
+                new FeedDefinition("bus", "from:MARTAservice route",
+                        "Route (?<route>\\w+)(?=:)", PARAMETER_CURSOR_PREFIX),
+                new FeedDefinition("rail", "from:MARTAservice (red OR gold OR blue OR green) line",
+                        "(?i)^(Red|Gold|Blue|Green) Line", null),
+                new FeedDefinition("streetcar", "from:MARTAservice streetcar",
+                        "(?i)^Streetcar", null),
+                new FeedDefinition("elevator", "from:MARTAservice (elevator OR escalator)",
+                        "\\b(?<route>" + STATION_WORD + "(?: " + STATION_WORD + ")*) (?i:station)", null)
+            );
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public String getRoutePattern() {
+        return routePattern;
+    }
+
+    public void setRoutePattern(String routePattern) {
+        this.routePattern = routePattern;
+    }
+
+    public String getCursorParameter() {
+        return cursorParameter != null ? cursorParameter : PARAMETER_CURSOR_PREFIX + "/" + name;
+    }
+
+    public void setCursorParameter(String cursorParameter) {
+        this.cursorParameter = cursorParameter;
+    }
+
+    public boolean validate() {
+        return this.name!=null && this.query!=null && this.routePattern!=null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FeedDefinition [name=%s, query=%s, routePattern=%s, cursorParameter=%s]",
+                name, query, routePattern, getCursorParameter());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package us.feury.martasync.feed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import us.feury.martasync.api.TwitterSearchData;
+import us.feury.martasync.api.TwitterSearchResponse;
+import us.feury.martasync.store.AlertRecord;
+import us.feury.martasync.store.AlertTable;
+
+/**
+ * Turns the tweets returned for one {@link FeedDefinition} into {@link AlertRecord}s keyed by
+ * the route the feed's pattern finds in each tweet. Instances are immutable and thread safe.
+ *
+ * @author Andrew Feury
+ */
+public class FeedParser {
+
+    private static final String GROUP_ROUTE = "route";
+
+    private final FeedDefinition feed;
+    private final Pattern routePattern;
+    private final boolean namedRoute;
+
+    // Logger
+    private static final Logger log = LoggerFactory.getLogger(FeedParser.class);
+
+    public FeedParser(FeedDefinition feed) {
+        this.feed = feed;
+        this.routePattern = Pattern.compile(feed.getRoutePattern());
+        this.namedRoute = hasGroup(this.routePattern, GROUP_ROUTE);
+    }
+
+    public FeedDefinition getFeed() {
+        return feed;
+    }
+
+    public List<AlertRecord> parse(TwitterSearchResponse tweets) {
+        List<AlertRecord> alerts = new ArrayList<>(tweets.getData().size());
+        for (TwitterSearchData tweetData : tweets.getData()) {
+            AlertRecord alert = parse(tweetData);
+            if (alert != null) alerts.add(alert);
+        }
+        return alerts;
+    }
+
+    /**
+     * @return the alert for this tweet, or null if it can't be attributed to a route
+     */
+    public AlertRecord parse(TwitterSearchData tweetData) {
+
+        // Verify expected attributes are present in the response
+        if (!tweetData.validate()) {
+            log.warn("Skipping malformed tweet data: {}", tweetData);
+            return null;
+        }
+
+        // Route
+        Matcher routeMatcher = this.routePattern.matcher(tweetData.getText());
+        if (!routeMatcher.find()) {
+            log.warn("Skipping tweet of undiscernible route in {} feed: {}", this.feed.getName(), tweetData);
+            return null;
+        }
+        String route = normalizeRoute(this.namedRoute ? routeMatcher.group(GROUP_ROUTE) : routeMatcher.group());
+
+        // Text, without the "<match>: " prefix that precedes the alert itself
+        String text = String.join("",
+                                tweetData.getText().split(
+                                            Pattern.quote(routeMatcher.group() + ": "))
+                            ).replace("\\n", " ")
+                             .trim();
+
+        // Created & Expires
+        long unixEpochTime = tweetData.getCreatedAt().toEpochSecond();
+        return AlertRecord.builder()
+                          .route(route)
+                          .text(text)
+                          .created(unixEpochTime)
+                          .expires(unixEpochTime + AlertTable.RETENTION_SECONDS)
+                          .build();
+    }
+
+    /**
+     * Whether the compiled pattern defines the named group. Java 11 has no API listing a pattern's
+     * groups, so ask a matcher that holds an (empty) match for it, which throws if there is none.
+     */
+    private static boolean hasGroup(Pattern pattern, String group) {
+        Matcher matcher = Pattern.compile("").matcher("");
+        matcher.find();
+        matcher.usePattern(pattern);
+        try {
+            matcher.group(group);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Title-cases each word of the key that is written all upper or all lower case, so "RED LINE"
+     * and "red line" are stored under "Red Line". Mixed-case words and words with digits or
+     * punctuation, e.g. "110" or "H.E.", are kept as tweeted.
+     */
+    static String normalizeRoute(String route) {
+        String[] words = route.trim().split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            boolean letters = !word.isEmpty() && word.chars().allMatch(Character::isLetter);
+            if (letters && (word.equals(word.toUpperCase(Locale.ROOT)) || word.equals(word.toLowerCase(Locale.ROOT)))) {
+                words[i] = word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1).toLowerCase(Locale.ROOT);
+            }
+        }
+        return String.join(" ", words);
+    }
+}
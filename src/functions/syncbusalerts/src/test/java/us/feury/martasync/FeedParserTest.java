@@ -0,0 +1,124 @@
+package us.feury.martasync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import us.feury.martasync.api.TwitterSearchData;
+import us.feury.martasync.api.TwitterSearchResponse;
+import us.feury.martasync.feed.FeedDefinition;
+import us.feury.martasync.feed.FeedParser;
+import us.feury.martasync.store.AlertRecord;
+import us.feury.martasync.store.AlertTable;
+
+public class FeedParserTest {
+
+    private static final ZonedDateTime CREATED = ZonedDateTime.parse("2023-01-05T14:30:00Z");
+
+    @Test
+    public void parse_shouldKeyBusAlertsByRouteNumber() {
+        AlertRecord alert = parser("bus").parse(tweet("Route 110: Buses are detoured due to a road closure."));
+        assertEquals("110", alert.getRoute());
+        assertEquals("Buses are detoured due to a road closure.", alert.getText());
+        assertEquals(CREATED.toEpochSecond(), alert.getCreated());
+        assertEquals(CREATED.toEpochSecond() + AlertTable.RETENTION_SECONDS, alert.getExpires());
+    }
+
+    @Test
+    public void parse_shouldMatchRailLinesInAnyCase() {
+        FeedParser rail = parser("rail");
+
+        AlertRecord shouted = rail.parse(tweet("RED LINE: Trains are delayed"));
+        assertEquals("Red Line", shouted.getRoute());
+        assertEquals("Trains are delayed", shouted.getText());
+
+        AlertRecord lower = rail.parse(tweet("red line trains single tracking"));
+        assertEquals("Red Line", lower.getRoute());
+        assertEquals("red line trains single tracking", lower.getText());
+
+        assertEquals("Gold Line", rail.parse(tweet("Gold Line: Trains are running on schedule")).getRoute());
+    }
+
+    @Test
+    public void parse_shouldSkipRailLinesMentionedInPassing() {
+        assertNull(parser("rail").parse(tweet("Route 5: Buses are detoured near the Red Line")));
+        assertNull(parser("streetcar").parse(tweet("Route 3: Buses are detoured along the streetcar tracks")));
+    }
+
+    @Test
+    public void parse_shouldMatchStreetcarInAnyCase() {
+        AlertRecord alert = parser("streetcar").parse(tweet("STREETCAR: Service is suspended"));
+        assertEquals("Streetcar", alert.getRoute());
+        assertEquals("Service is suspended", alert.getText());
+    }
+
+    @Test
+    public void parse_shouldKeyElevatorAlertsByStation() {
+        FeedParser elevator = parser("elevator");
+        assertEquals("Five Points", elevator.parse(tweet("Elevator Out Of Service At Five Points Station")).getRoute());
+        assertEquals("Five Points", elevator.parse(tweet("The elevator at Five Points station is out of service")).getRoute());
+        assertEquals("Five Points", elevator.parse(tweet("ELEVATOR OUT OF SERVICE AT FIVE POINTS STATION")).getRoute());
+        assertEquals("H.E. Holmes", elevator.parse(tweet("H.E. Holmes Station elevator is out of service")).getRoute());
+
+        AlertRecord prefixed = elevator.parse(tweet("Doraville Station: Escalator out of service"));
+        assertEquals("Doraville", prefixed.getRoute());
+        assertEquals("Escalator out of service", prefixed.getText());
+    }
+
+    @Test
+    public void parse_shouldKeyByNamedGroupOrWholeMatch() {
+        FeedParser named = new FeedParser(new FeedDefinition("named", "route", "Route (?<route>\\w+)(?=:)", null));
+        FeedParser whole = new FeedParser(new FeedDefinition("whole", "route", "Route \\w+", null));
+
+        AlertRecord byGroup = named.parse(tweet("Route 6: Buses are delayed"));
+        assertEquals("6", byGroup.getRoute());
+        assertEquals("Buses are delayed", byGroup.getText());
+
+        AlertRecord byMatch = whole.parse(tweet("Route 6: Buses are delayed"));
+        assertEquals("Route 6", byMatch.getRoute());
+        assertEquals("Buses are delayed", byMatch.getText());
+    }
+
+    @Test
+    public void parse_shouldOnlyUseARouteGroupThePatternDefines() {
+        FeedParser escaped = new FeedParser(new FeedDefinition("escaped", "route", "Route \\(?<route>", null));
+        assertEquals("Route <route>", escaped.parse(tweet("Route <route>: Buses are delayed")).getRoute());
+
+        FeedParser commented = new FeedParser(new FeedDefinition("commented", "route", "(?x)Route\\ \\d+ # (?<route>)", null));
+        assertEquals("Route 6", commented.parse(tweet("Route 6: Buses are delayed")).getRoute());
+    }
+
+    @Test
+    public void parse_shouldSkipUnattributableTweets() {
+        FeedParser bus = parser("bus");
+        assertNull(bus.parse(tweet("Service update for this weekend")));
+
+        TwitterSearchData malformed = tweet("Route 110: Buses are delayed");
+        malformed.setCreatedAt(null);
+        assertNull(bus.parse(malformed));
+
+        TwitterSearchResponse response = new TwitterSearchResponse();
+        response.setData(List.of(tweet("Route 110: Buses are delayed"), tweet("Have a great weekend")));
+        assertEquals(1, bus.parse(response).size());
+    }
+
+    private static FeedParser parser(String name) {
+        return FeedDefinition.defaults().stream()
+                             .filter(f->f.getName().equals(name))
+                             .map(FeedParser::new)
+                             .findFirst()
+                             .orElseThrow();
+    }
+
+    private static TwitterSearchData tweet(String text) {
+        TwitterSearchData tweet = new TwitterSearchData();
+        tweet.setId("1610000000000000000");
+        tweet.setCreatedAt(CREATED);
+        tweet.setText(text);
+        return tweet;
+    }
+}
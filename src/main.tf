@@ -25,6 +25,12 @@ locals {
   apisync_name = "MartaTweetSync"
   dbquery_name = "MartaTweetQuery"
   parameter_path = "/MartaServiceSyncer/TwitterAPI"
+
+  # JVM jar on java11, or native executable on the provided.al2 custom runtime
+  lambda_runtime  = var.native_image ? "provided.al2" : "java11"
+  build_profile   = var.native_image ? "-Pnative " : ""
+  apisync_package = var.native_image ? "${path.module}/functions/syncbusalerts/target/syncbusalerts-native.zip" : "${path.module}/functions/syncbusalerts/target/syncbusalerts.jar"
+  dbquery_package = var.native_image ? "${path.module}/functions/querybusalerts/target/querybusalerts-native.zip" : "${path.module}/functions/querybusalerts/target/querybusalerts.jar"
 }
 
 ## Data
@@ -71,19 +77,39 @@ resource "aws_dynamodb_table" "alert_db" {
   }
 }
 
+## S3 bucket for the long-term alert archive
+resource "aws_s3_bucket" "alert_archive" {
+  bucket_prefix = "marta-alert-archive-"
+}
+
+resource "aws_s3_bucket_public_access_block" "alert_archive" {
+  bucket                  = aws_s3_bucket.alert_archive.id
+  block_public_acls       = true
+  block_public_policy     = true
+  ignore_public_acls      = true
+  restrict_public_buckets = true
+}
+
 ## MartaTweetSync
 resource "aws_lambda_function" "apisync" {
   function_name    = local.apisync_name
   role             = aws_iam_role.for_apisync.arn
   description      = "Monitors the @MartaService Twitter account for service alerts"
-  runtime          = "java11"
+  runtime          = local.lambda_runtime
   architectures    = ["x86_64"]
-  filename         = "${path.module}/functions/syncbusalerts/target/syncbusalerts.jar"
-  source_code_hash = filebase64sha256("${path.module}/functions/syncbusalerts/target/syncbusalerts.jar")
+  filename         = local.apisync_package
+  source_code_hash = filebase64sha256(local.apisync_package)
   handler          = "us.feury.martasync.MartaSyncFunction"
   timeout          = 15
   memory_size      = 512
 
+  environment {
+    variables = {
+      SYNC_MODE      = var.sync_mode
+      ARCHIVE_BUCKET = aws_s3_bucket.alert_archive.id
+    }
+  }
+
   depends_on = [
     null_resource.build_apisync,
     aws_cloudwatch_log_group.for_apisync,
@@ -93,7 +119,7 @@ resource "aws_lambda_function" "apisync" {
 
 resource "null_resource" "build_apisync" {
   provisioner "local-exec" {
-    command = "mvn package -f ${path.module}/functions/syncbusalerts/pom.xml"
+    command = "mvn package ${local.build_profile}-pl syncbusalerts -am -f ${path.module}/functions/pom.xml"
   }
 }
 
@@ -165,6 +191,24 @@ resource "aws_iam_policy" "for_apisync" {
         ]
         Effect   = "Allow"
         Resource = "arn:aws:ssm:${data.aws_region.current.name}:${data.aws_caller_identity.current.account_id}:parameter${local.parameter_path}/*"
+      },
+      {
+        Sid      = "ListArchive"
+        Action   = [
+          "s3:ListBucket"
+        ]
+        Effect   = "Allow"
+        Resource = "${aws_s3_bucket.alert_archive.arn}"
+      },
+      {
+        Sid      = "ReadWriteArchive"
+        Action   = [
+          "s3:GetObject",
+          "s3:PutObject",
+          "s3:DeleteObject"
+        ]
+        Effect   = "Allow"
+        Resource = "${aws_s3_bucket.alert_archive.arn}/*"
       }
     ]
   })
@@ -198,10 +242,10 @@ resource "aws_lambda_function" "query" {
   function_name    = local.dbquery_name
   role             = aws_iam_role.for_query.arn
   description      = "Queries locally processed @MartaService alerts from DynamoDB"
-  runtime          = "java11"
+  runtime          = local.lambda_runtime
   architectures    = ["x86_64"]
-  filename         = "${path.module}/functions/querybusalerts/target/querybusalerts.jar"
-  source_code_hash = filebase64sha256("${path.module}/functions/querybusalerts/target/querybusalerts.jar")
+  filename         = local.dbquery_package
+  source_code_hash = filebase64sha256(local.dbquery_package)
   handler          = "us.feury.martasync.MartaQueryFunction"
   timeout          = 15
   memory_size      = 512
@@ -215,7 +259,7 @@ resource "aws_lambda_function" "query" {
 
 resource "null_resource" "build_query" {
   provisioner "local-exec" {
-    command = "mvn package -f ${path.module}/functions/querybusalerts/pom.xml"
+    command = "mvn package ${local.build_profile}-pl querybusalerts -am -f ${path.module}/functions/pom.xml"
   }
 }
 
@@ -11,4 +11,9 @@ output "lambda_query" {
 output "trigger_sync_rule" {
   description = "EventBridge trigger to run MartaTweetSync"
   value       = aws_cloudwatch_event_rule.trigger_api_sync.arn
-}
\ No newline at end of file
+}
+
+output "alert_archive_bucket" {
+  description = "S3 bucket holding the long-term alert archive"
+  value       = aws_s3_bucket.alert_archive.id
+}
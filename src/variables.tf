@@ -16,4 +16,19 @@ variable "cors_allowed_origins" {
   description = "Allowed origins for CORS"
   default = "*"
   type = string
-}
\ No newline at end of file
+}
+
+variable "native_image" {
+  description = "Deploy GraalVM native executables on the provided.al2 runtime instead of jars on java11"
+  default = false
+  type = bool
+}
+variable "sync_mode" {
+  description = "Transport for the sync function's DynamoDB & SSM calls: blocking (fastest cold start) or async"
+  default = "blocking"
+  type = string
+  validation {
+    condition = contains(["blocking", "async"], var.sync_mode)
+    error_message = "The sync mode must be blocking or async"
+  }
+}